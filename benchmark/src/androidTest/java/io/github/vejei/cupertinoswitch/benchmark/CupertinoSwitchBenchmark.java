@@ -0,0 +1,163 @@
+package io.github.vejei.cupertinoswitch.benchmark;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.rules.ActivityScenarioRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.github.vejei.cupertinoswitch.CupertinoSwitch;
+
+/**
+ * Benchmarks of the {@link CupertinoSwitch} hot paths, each one reports the time and the
+ * allocations per operation.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CupertinoSwitchBenchmark {
+    private static final int DRAG_MOVE_COUNT = 20;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Rule
+    public ActivityScenarioRule<BenchmarkActivity> activityRule =
+            new ActivityScenarioRule<>(BenchmarkActivity.class);
+
+    private CupertinoSwitch cupertinoSwitch;
+    private int measureSpec;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        cupertinoSwitch = new CupertinoSwitch(context);
+        measureSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        cupertinoSwitch.measure(measureSpec, measureSpec);
+        cupertinoSwitch.layout(0, 0, cupertinoSwitch.getMeasuredWidth(),
+                cupertinoSwitch.getMeasuredHeight());
+    }
+
+    @Test
+    @UiThreadTest
+    public void measureAndLayout() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            // Skip the measure cache, so that onMeasure and onLayout run on every iteration.
+            cupertinoSwitch.forceLayout();
+            cupertinoSwitch.measure(measureSpec, measureSpec);
+            cupertinoSwitch.layout(0, 0, cupertinoSwitch.getMeasuredWidth(),
+                    cupertinoSwitch.getMeasuredHeight());
+        }
+    }
+
+    @Test
+    @UiThreadTest
+    public void drawSoftware() {
+        Bitmap bitmap = Bitmap.createBitmap(cupertinoSwitch.getWidth(),
+                cupertinoSwitch.getHeight(), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            cupertinoSwitch.draw(canvas);
+        }
+        bitmap.recycle();
+    }
+
+    @Test
+    @UiThreadTest
+    public void touchDrag() {
+        float width = cupertinoSwitch.getWidth();
+        float y = cupertinoSwitch.getHeight() / 2f;
+        long downTime = SystemClock.uptimeMillis();
+        long upTime = downTime + ViewConfiguration.getTapTimeout() + 1000;
+        MotionEvent downEvent = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN,
+                width / 2f, y, 0);
+        MotionEvent moveEvent = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_MOVE,
+                width / 2f, y, 0);
+        MotionEvent upEvent = MotionEvent.obtain(downTime, upTime, MotionEvent.ACTION_UP,
+                width / 2f, y, 0);
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            cupertinoSwitch.onTouchEvent(downEvent);
+            for (int i = 0; i < DRAG_MOVE_COUNT; i++) {
+                moveEvent.setLocation(width * i / (DRAG_MOVE_COUNT - 1), y);
+                cupertinoSwitch.onTouchEvent(moveEvent);
+            }
+            cupertinoSwitch.onTouchEvent(upEvent);
+        }
+
+        downEvent.recycle();
+        moveEvent.recycle();
+        upEvent.recycle();
+    }
+
+    @Test
+    @UiThreadTest
+    public void dragFrameSoftware() {
+        Bitmap bitmap = Bitmap.createBitmap(cupertinoSwitch.getWidth(),
+                cupertinoSwitch.getHeight(), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        float width = cupertinoSwitch.getWidth();
+        float y = cupertinoSwitch.getHeight() / 2f;
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent downEvent = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN,
+                width / 2f, y, 0);
+        MotionEvent moveEvent = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_MOVE,
+                width / 2f, y, 0);
+        cupertinoSwitch.onTouchEvent(downEvent);
+        cupertinoSwitch.onTouchEvent(moveEvent);
+
+        // One frame of a drag: a single move followed by a draw.
+        int i = 0;
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            moveEvent.setLocation(width * (i++ % DRAG_MOVE_COUNT) / (DRAG_MOVE_COUNT - 1), y);
+            cupertinoSwitch.onTouchEvent(moveEvent);
+            cupertinoSwitch.draw(canvas);
+        }
+
+        downEvent.recycle();
+        moveEvent.recycle();
+        bitmap.recycle();
+    }
+
+    @Test
+    @UiThreadTest
+    public void setCheckedWithoutAnimation() {
+        // Not attached to a window, the slider moves to the new state immediately.
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            cupertinoSwitch.setChecked(!cupertinoSwitch.isChecked());
+        }
+    }
+
+    @Test
+    public void setCheckedWithAnimation() {
+        activityRule.getScenario().onActivity(activity -> {
+            CupertinoSwitch attachedSwitch = activity.getCupertinoSwitch();
+            boolean checked = attachedSwitch.isChecked();
+
+            BenchmarkState state = benchmarkRule.getState();
+            while (state.keepRunning()) {
+                // Each call reverses the transition started by the previous one.
+                checked = !checked;
+                attachedSwitch.setChecked(checked);
+            }
+        });
+    }
+}
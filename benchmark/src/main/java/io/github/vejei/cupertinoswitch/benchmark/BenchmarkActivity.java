@@ -0,0 +1,29 @@
+package io.github.vejei.cupertinoswitch.benchmark;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import io.github.vejei.cupertinoswitch.CupertinoSwitch;
+
+/**
+ * Hosts a single attached {@link CupertinoSwitch}, for the benchmarks which need a window.
+ */
+public class BenchmarkActivity extends Activity {
+    private CupertinoSwitch cupertinoSwitch;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        FrameLayout root = new FrameLayout(this);
+        cupertinoSwitch = new CupertinoSwitch(this);
+        root.addView(cupertinoSwitch, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        setContentView(root);
+    }
+
+    public CupertinoSwitch getCupertinoSwitch() {
+        return cupertinoSwitch;
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Instrumented test, which checks that the touch pipeline of {@link CupertinoSwitch} does not
+ * allocate.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TouchAllocationTest {
+    private static final int DRAG_EVENT_COUNT = 500;
+
+    private CupertinoSwitch cupertinoSwitch;
+    private MotionEvent downEvent;
+    private MotionEvent moveEvent;
+    private MotionEvent upEvent;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        cupertinoSwitch = new CupertinoSwitch(context);
+        int measureSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        cupertinoSwitch.measure(measureSpec, measureSpec);
+        cupertinoSwitch.layout(0, 0, cupertinoSwitch.getMeasuredWidth(),
+                cupertinoSwitch.getMeasuredHeight());
+
+        // Obtain every event up front, MotionEvent.obtain is not part of the measured pipeline.
+        float centerX = cupertinoSwitch.getWidth() / 2f;
+        float centerY = cupertinoSwitch.getHeight() / 2f;
+        long downTime = SystemClock.uptimeMillis();
+        long upTime = downTime + ViewConfiguration.getTapTimeout() + 1000;
+        downEvent = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, centerX,
+                centerY, 0);
+        moveEvent = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_MOVE, centerX,
+                centerY, 0);
+        upEvent = MotionEvent.obtain(downTime, upTime, MotionEvent.ACTION_UP, centerX, centerY, 0);
+    }
+
+    @After
+    public void tearDown() {
+        downEvent.recycle();
+        moveEvent.recycle();
+        upEvent.recycle();
+    }
+
+    @Test
+    @UiThreadTest
+    @SuppressWarnings("deprecation")
+    public void dragDoesNotAllocate() {
+        // Warm up, so that one-time class initialization is not counted.
+        drag();
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        drag();
+        Debug.stopAllocCounting();
+
+        assertEquals(0, Debug.getThreadAllocCount());
+    }
+
+    private void drag() {
+        float width = cupertinoSwitch.getWidth();
+        float y = cupertinoSwitch.getHeight() / 2f;
+
+        cupertinoSwitch.onTouchEvent(downEvent);
+        for (int i = 0; i < DRAG_EVENT_COUNT - 2; i++) {
+            // Sweep the slider back and forth across the whole track.
+            float fraction = (i % 100) / 99f;
+            moveEvent.setLocation(((i / 100) % 2 == 0 ? fraction : 1 - fraction) * width, y);
+            cupertinoSwitch.onTouchEvent(moveEvent);
+        }
+        cupertinoSwitch.onTouchEvent(upEvent);
+    }
+}
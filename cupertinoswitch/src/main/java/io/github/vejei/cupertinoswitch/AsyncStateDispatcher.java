@@ -0,0 +1,100 @@
+package io.github.vejei.cupertinoswitch;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Delivers the state changes of a switch to its {@link CupertinoSwitch.OnStateChangeListener} on
+ * an {@link Executor}.
+ * The changes are queued in a bounded buffer, the oldest pending change is dropped when it is
+ * full, and at most one delivery task runs at a time, so the listener sees the changes of the
+ * switch in order even on a multi-threaded executor.
+ */
+final class AsyncStateDispatcher implements Runnable {
+    /** The default maximum number of pending changes. */
+    static final int DEFAULT_CAPACITY = 8;
+
+    private final CupertinoSwitch view;
+    private final CupertinoSwitch.OnStateChangeListener listener;
+    private final Executor executor;
+
+    /** The pending states, a ring buffer starting at {@link #head}. */
+    private final boolean[] queue;
+    private int head;
+    private int size;
+
+    /** True if a delivery task is queued or running on the executor. */
+    private boolean scheduled;
+
+    AsyncStateDispatcher(CupertinoSwitch view, CupertinoSwitch.OnStateChangeListener listener,
+                         Executor executor, int capacity) {
+        this.view = view;
+        this.listener = listener;
+        this.executor = executor;
+        this.queue = new boolean[Math.max(1, capacity)];
+    }
+
+    /**
+     * Queue a state change for delivery, called from the main thread.
+     * @param checked The new checked state.
+     */
+    void enqueue(boolean checked) {
+        synchronized (this) {
+            if (size == queue.length) {
+                // Drop the oldest pending change.
+                head = (head + 1) % queue.length;
+                size--;
+            }
+            queue[(head + size) % queue.length] = checked;
+            size++;
+
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+
+        try {
+            executor.execute(this);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                scheduled = false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            boolean checked;
+            synchronized (this) {
+                if (size == 0) {
+                    scheduled = false;
+                    return;
+                }
+                checked = queue[head];
+                head = (head + 1) % queue.length;
+                size--;
+            }
+
+            boolean delivered = false;
+            try {
+                listener.onChanged(view, checked);
+                if (checked) {
+                    listener.onSwitchOn(view);
+                } else {
+                    listener.onSwitchOff(view);
+                }
+                delivered = true;
+            } finally {
+                if (!delivered) {
+                    // The listener has thrown, the next change schedules a new delivery task,
+                    // which also delivers the changes still pending.
+                    synchronized (this) {
+                        scheduled = false;
+                    }
+                }
+            }
+        }
+    }
+}
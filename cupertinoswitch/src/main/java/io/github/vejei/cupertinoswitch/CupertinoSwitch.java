@@ -1,72 +1,111 @@
 package io.github.vejei.cupertinoswitch;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ArgbEvaluator;
-import android.animation.PropertyValuesHolder;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.RectF;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.util.AttributeSet;
+import android.view.Display;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewConfiguration;
+import android.view.VelocityTracker;
+import android.view.ViewParent;
 
 import androidx.annotation.ColorInt;
 import androidx.annotation.Dimension;
+import androidx.annotation.IntDef;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.core.view.ViewCompat;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.concurrent.Executor;
+
 /**
  * An iOS-style switch.
  * Used to toggle the on/off state of a single setting.
  */
 public class CupertinoSwitch extends View {
-    /** The default width of switch, in dp. */
-    private static final @Dimension(unit = Dimension.DP) int DEFAULT_SWITCH_WIDTH = 48;
+    /**
+     * Notify the {@link OnStateChangeListener} as soon as each transition has completed with a
+     * new state.
+     */
+    public static final int DISPATCH_MODE_IMMEDIATE = 0;
 
-    /** The default switch animation duration, in milliseconds. */
-    private static final int DEFAULT_SWITCH_DURATION = 250;
+    /**
+     * Notify the {@link OnStateChangeListener} once the switch has settled, a new transition
+     * started before the notification is delivered replaces it.
+     */
+    public static final int DISPATCH_MODE_SETTLED = 1;
 
-    /** The default slider shadow radius, in dp */
-    private static final @Dimension(unit = Dimension.DP) int DEFAULT_SLIDER_SHADOW_RADIUS = 4;
+    /**
+     * Like {@link #DISPATCH_MODE_SETTLED}, but wait for the dispatch window without any new
+     * transition before notifying, see {@link #setDispatchWindow(long)}.
+     */
+    public static final int DISPATCH_MODE_COALESCED = 2;
 
     /**
-     * The offset between the slider and the track, used to calculate the radius of the slider,
-     * if not specified.
+     * Move the slider over the switch duration with an accelerate-decelerate curve, whatever the
+     * distance left.
+     */
+    public static final int SWITCH_ANIMATION_TIMED = 0;
+
+    /**
+     * Move the slider with a critically damped spring, which takes over the current position and
+     * velocity of the slider. A whole distance from rest settles over about the switch duration,
+     * the settle time is set by the spring stiffness and only grows with the logarithm of the
+     * distance, e.g. a fifth of the distance still takes about four fifths of the time.
      */
-    private static final @Dimension(unit = Dimension.DP) int SLIDER_OFFSET = 2;
+    public static final int SWITCH_ANIMATION_SPRING = 1;
 
-    /** The minimum radius of the slider. */
-    private static final @Dimension(unit = Dimension.DP) int MIN_SLIDER_RADIUS = 4;
+    /**
+     * Blend the track colors the same way as {@link android.animation.ArgbEvaluator}, in linear
+     * space.
+     */
+    public static final int TRACK_COLOR_BLEND_LINEAR = 0;
+
+    /**
+     * Blend the track colors in the Oklab space, the intermediate colors keep an even perceived
+     * lightness and hue.
+     */
+    public static final int TRACK_COLOR_BLEND_PERCEPTUAL = 1;
 
-    private static final String PROPERTY_NAME_TRACK_COLOR = "track_color";
+    /** The default dispatch window of {@link #DISPATCH_MODE_COALESCED}, in milliseconds. */
+    private static final long DEFAULT_DISPATCH_WINDOW = 500;
 
     private static final int TOUCH_MODE_IDLE = 0;
     private static final int TOUCH_MODE_DOWN = 1;
     private static final int TOUCH_MODE_DRAGGING = 2;
 
-    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    private final Paint sliderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private static final int INVALIDATE_NONE = 0;
+    private static final int INVALIDATE_SLIDER = 1;
+    private static final int INVALIDATE_ALL = 2;
+
+    /** Draws the track and the slider, created with the style. */
+    private SwitchRenderer renderer;
 
     private int touchMode;
     private float touchX;
 
-    /** Top bound for drawing the switch track and slider. */
-    private int switchTop;
+    /** The distance a touch moves by before it drags the slider, in pixels. */
+    private int touchSlop;
 
-    /** Left bound for drawing the switch track and slider. */
-    private int switchLeft;
+    /** Tracks the drag velocity, created on the first touch and released when detached. */
+    private VelocityTracker velocityTracker;
+    private int minimumFlingVelocity;
+    private int maximumFlingVelocity;
 
-    /** Right bound for drawing the switch track and slider. */
-    private int switchRight;
+    /** True if the slider is drawn where the touch is predicted to be on the next frame. */
+    private boolean touchPredictionEnabled;
 
-    /** Bottom bound for drawing the switch track and slider. */
-    private int switchBottom;
+    /** The time the slider is drawn ahead of the touch, one display frame. */
+    private long touchPredictionNanos;
+
+    /** The track bounds, the slider positions and the hit region, computed at layout time. */
+    private final SwitchGeometry geometry = new SwitchGeometry();
 
     /** Width required to draw the switch track and slider. */
     private int switchWidth;
@@ -77,6 +116,15 @@ public class CupertinoSwitch extends View {
     /** The switch animation duration, in milliseconds. */
     private int switchDuration;
 
+    /** How the slider moves to a new state. */
+    private @SwitchAnimation int switchAnimation;
+
+    /** How the track color is blended during a transition. */
+    private @TrackColorBlend int trackColorBlend;
+
+    /** The shared blend of the track colors, null if not resolved yet. */
+    private TrackColorRamp trackColorRamp;
+
     /**
      * The color of track when the switch is on, the default is {@link android.graphics.Color#GRAY},
      * if not specified.
@@ -95,10 +143,18 @@ public class CupertinoSwitch extends View {
     private int sliderColor;
 
     private int sliderRadius;
+    private int minSliderRadius;
     private boolean sliderShadowEnabled;
     private int sliderShadowColor;
     private int sliderShadowRadius;
 
+    /** The render state of the last drawn frame. */
+    private float drawnSliderCenterX = Float.NaN;
+    private int drawnTrackColor;
+
+    /** The invalidation requested since the last drawn frame. */
+    private int pendingInvalidation = INVALIDATE_NONE;
+
     private boolean checked;
 
     private int trackColor;
@@ -107,18 +163,61 @@ public class CupertinoSwitch extends View {
     private int trackCornerRadius;
 
     private float sliderCenterX;
-    private float sliderCenterY;
-    private float sliderCenterStartX;
-    private float sliderCenterEndX;
-    private int sliderMoveRange;
 
-    private final ValueAnimator sliderAnimator = new ValueAnimator();
-    private final ValueAnimator trackAnimator = new ValueAnimator();
-    private final ArgbEvaluator trackColorEvaluator = new ArgbEvaluator();
+    /** The size wanted by the last measure pass, before the measure specs applied, or -1. */
+    private int measuredDesiredWidth = -1;
+    private int measuredDesiredHeight = -1;
+
+    /**
+     * Drives both the slider position and the track color from a single fraction, created on the
+     * first transition and released when detached from the window.
+     */
+    private SwitchAnimator sliderAnimator;
+
+    /**
+     * The values the running animation starts from and moves to, the slider position as a
+     * fraction of the track, so that it survives a layout change.
+     */
+    private float animationStartFraction;
+    private float animationEndFraction;
+    private int animationEndColor;
+    private boolean animationTargetChecked;
 
     /** {@link OnStateChangeListener} */
     private OnStateChangeListener onStateChangeListener;
 
+    /** Delivers to the listener on its executor, null if the listener is called directly. */
+    private AsyncStateDispatcher asyncStateDispatcher;
+
+    /** How the {@link OnStateChangeListener} is notified. */
+    private @DispatchMode int dispatchMode = DISPATCH_MODE_IMMEDIATE;
+    private long dispatchWindow = DEFAULT_DISPATCH_WINDOW;
+
+    /** The last state the listener knows about, no notification is made for the same state. */
+    private boolean dispatchedChecked;
+
+    /** Delivers the settled state in the deferred dispatch modes, created on first use. */
+    private Runnable dispatchRunnable;
+
+    /** The {@link CupertinoSwitchGroup} this switch has been added to, null if none. */
+    private CupertinoSwitchGroup group;
+
+    /** {@link OnTransitionMetricsListener} */
+    private OnTransitionMetricsListener onTransitionMetricsListener;
+    private TransitionMetrics transitionMetrics;
+
+    /** True if the running transition is being measured. */
+    private boolean transitionMetricsActive;
+
+    /** The time of the latest ACTION_DOWN event, 0 if not consumed by a transition yet. */
+    private long touchDownTimeNanos;
+
+    /**
+     * Refreshes the shadow when the battery saver is toggled, created and registered when
+     * attached, released when detached.
+     */
+    private MotionSettings.Listener motionSettingsListener;
+
     public CupertinoSwitch(Context context) {
         this(context, null);
     }
@@ -132,160 +231,261 @@ public class CupertinoSwitch extends View {
         TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.CupertinoSwitch,
                 defStyleAttr, 0);
 
-        int defaultSwitchWidthPixels = (int) ViewUtils.dpToPx(context, DEFAULT_SWITCH_WIDTH);
-        int sliderOffset = (int) ViewUtils.dpToPx(context, SLIDER_OFFSET);
-        int defaultSliderShadowRadiusPixels = (int) ViewUtils.dpToPx(context,
-                DEFAULT_SLIDER_SHADOW_RADIUS);
-
-        switchWidth = typedArray.getDimensionPixelSize(R.styleable.CupertinoSwitch_switchWidth,
-                defaultSwitchWidthPixels);
+        // Switches inflated with the same attributes share the style and its slider paint.
+        applyStyle(CupertinoSwitchStyle.obtain(context,
+                attrs != null ? attrs.getStyleAttribute() : 0, typedArray));
 
-        switchHeight = typedArray.getDimensionPixelSize(R.styleable.CupertinoSwitch_switchHeight,
-                switchWidth / 2);
-        switchHeight = (int) constrain(switchHeight, 0, switchWidth);
-        trackCornerRadius = switchHeight / 2;
+        checked = typedArray.getBoolean(R.styleable.CupertinoSwitch_android_checked, false);
+        dispatchedChecked = checked;
+        trackColor = !checked ? trackOffColor : trackOnColor;
 
-        switchDuration = typedArray.getInt(R.styleable.CupertinoSwitch_switchDuration,
-                DEFAULT_SWITCH_DURATION);
-        sliderColor = typedArray.getColor(R.styleable.CupertinoSwitch_sliderColor, Color.WHITE);
+        setEnabled(typedArray.getBoolean(R.styleable.CupertinoSwitch_android_enabled, isEnabled()));
 
-        sliderRadius = typedArray.getDimensionPixelSize(R.styleable.CupertinoSwitch_sliderRadius,
-                trackCornerRadius - sliderOffset);
-        // Constrain the slider radius to [MIN_SLIDER_RADIUS, trackCornerRadius].
-        sliderRadius = (int) constrain(sliderRadius, ViewUtils.dpToPx(context, MIN_SLIDER_RADIUS),
-                trackCornerRadius);
+        typedArray.recycle();
+    }
 
-        sliderShadowEnabled = typedArray.getBoolean(R.styleable.CupertinoSwitch_sliderShadowEnabled,
-                true);
-        sliderShadowColor = typedArray.getColor(R.styleable.CupertinoSwitch_sliderShadowColor,
-                Color.parseColor("#dddddd"));
-        sliderShadowRadius = typedArray.getDimensionPixelSize(
-                R.styleable.CupertinoSwitch_sliderShadowRadius, defaultSliderShadowRadiusPixels);
+    /**
+     * Create a switch with an already resolved style, skipping the attribute resolution.
+     * @param context The Context the view is running in.
+     * @param style The shared style, see {@link CupertinoSwitchStyle#obtain(Context, int)}.
+     */
+    public CupertinoSwitch(Context context, CupertinoSwitchStyle style) {
+        super(context);
+        applyStyle(style);
+        trackColor = trackOffColor;
+    }
 
-        trackOnColor = typedArray.getColor(R.styleable.CupertinoSwitch_trackOnColor, Color.GRAY);
-        trackOffColor = typedArray.getColor(R.styleable.CupertinoSwitch_trackOffColor, Color.GRAY);
+    private void applyStyle(CupertinoSwitchStyle style) {
+        ViewConfiguration configuration = ViewConfiguration.get(getContext());
+        touchSlop = configuration.getScaledTouchSlop();
+        minimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        maximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
 
-        checked = typedArray.getBoolean(R.styleable.CupertinoSwitch_android_checked, false);
-        trackColor = !checked ? trackOffColor : trackOnColor;
+        switchWidth = style.getSwitchWidth();
+        switchHeight = style.getSwitchHeight();
+        trackCornerRadius = switchHeight / 2;
+        switchDuration = style.getSwitchDuration();
+        switchAnimation = style.getSwitchAnimation();
+        trackColorBlend = style.getTrackColorBlend();
+        sliderColor = style.getSliderColor();
+        sliderRadius = style.getSliderRadius();
+        minSliderRadius = style.getMinSliderRadius();
+        sliderShadowEnabled = style.isSliderShadowEnabled();
+        sliderShadowColor = style.getSliderShadowColor();
+        sliderShadowRadius = style.getSliderShadowRadius();
+        trackOnColor = style.getTrackOnColor();
+        trackOffColor = style.getTrackOffColor();
+
+        renderer = new SwitchRenderer(style);
+    }
 
-        setEnabled(typedArray.getBoolean(R.styleable.CupertinoSwitch_android_enabled, isEnabled()));
+    private SwitchAnimator obtainSliderAnimator() {
+        if (sliderAnimator == null) {
+            sliderAnimator = new SwitchAnimator(this, new SwitchAnimator.Callback() {
+                @Override
+                public void onAnimationUpdate(float fraction) {
+                    onTransitionFrame(fraction);
+                }
 
-        typedArray.recycle();
+                @Override
+                public void onAnimationEnd() {
+                    onTransitionEnd();
+                }
+            });
+        }
+        return sliderAnimator;
+    }
 
-        paint.setStyle(Paint.Style.FILL);
-        sliderPaint.setStyle(Paint.Style.FILL);
-        sliderPaint.setColor(sliderColor);
-        if (sliderShadowEnabled) {
-            sliderPaint.setShadowLayer(sliderShadowRadius, 0, 0, sliderShadowColor);
+    private void onTransitionFrame(float fraction) {
+        if (transitionMetricsActive) {
+            transitionMetrics.onAnimationFrame(sliderAnimator.getLastFrameTimeNanos());
+        }
+        if (sliderAnimator.isSpring()) {
+            // The spring position is the slider position, it stops at the track ends.
+            float position = constrain(fraction, 0, 1);
+            sliderCenterX = geometry.sliderXAt(position);
+            trackColor = trackColorAt(position);
+            invalidateIfChanged();
+            return;
         }
+        float position = animationStartFraction
+                + (animationEndFraction - animationStartFraction) * fraction;
+        sliderCenterX = geometry.sliderXAt(position);
+        trackColor = trackColorAt(position);
+        invalidateIfChanged();
+    }
 
-        sliderAnimator.setDuration(switchDuration);
-        sliderAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                sliderCenterX = (float) animation.getAnimatedValue();
-                invalidate();
+    private void onTransitionEnd() {
+        if (transitionMetricsActive) {
+            transitionMetricsActive = false;
+            transitionMetrics.end(FrameScheduler.getInstance().nanoTime());
+            if (onTransitionMetricsListener != null) {
+                onTransitionMetricsListener.onTransitionMetrics(this, transitionMetrics);
             }
-        });
-        sliderAnimator.addListener(new AnimatorListenerAdapter() {
-
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                checked = !checked;
+        }
 
-                if (onStateChangeListener != null) {
-                    onStateChangeListener.onChanged(CupertinoSwitch.this, checked);
+        boolean changed = checked != animationTargetChecked;
+        checked = animationTargetChecked;
+        dispatchSettledChange(changed);
+        if (group != null) {
+            group.onSwitchSettled(this, changed);
+        }
+    }
 
-                    if (checked) {
-                        onStateChangeListener.onSwitchOn(CupertinoSwitch.this);
-                    } else {
-                        onStateChangeListener.onSwitchOff(CupertinoSwitch.this);
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // The view is drawn again once attached.
+        pendingInvalidation = INVALIDATE_NONE;
+        if (motionSettingsListener == null) {
+            motionSettingsListener = new MotionSettings.Listener() {
+                @Override
+                public void onMotionSettingsChanged() {
+                    if (renderer.refreshSliderShadow()) {
+                        invalidate();
                     }
                 }
+            };
+        }
+        MotionSettings.register(getContext(), motionSettingsListener);
+        renderer.refreshSliderShadow();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (sliderAnimator != null) {
+            if (sliderAnimator.isRunning()) {
+                // Finish the running transition, so that the state change is not lost.
+                sliderAnimator.cancel();
+                sliderCenterX = geometry.sliderXAt(animationEndFraction);
+                trackColor = animationEndColor;
+                onTransitionEnd();
             }
-        });
-
-        trackAnimator.setDuration(switchDuration);
-        trackAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                trackColor = (int) animation.getAnimatedValue();
-                invalidate();
-            }
-        });
+            sliderAnimator = null;
+        }
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+        if (dispatchRunnable != null) {
+            // Deliver the pending notification now, it would not run until attached again.
+            removeCallbacks(dispatchRunnable);
+            dispatchSettledState();
+        }
+        if (motionSettingsListener != null) {
+            MotionSettings.unregister(motionSettingsListener);
+            motionSettingsListener = null;
+        }
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        int width = switchWidth;
-        int height = switchHeight;
-
-        int desiredWidth;
-        int desiredHeight;
+        measuredDesiredWidth = getDesiredWidth();
+        measuredDesiredHeight = getDesiredHeight();
+        setMeasuredDimension(resolveSize(measuredDesiredWidth, widthMeasureSpec),
+                resolveSize(measuredDesiredHeight, heightMeasureSpec));
+    }
 
-        if (sliderShadowEnabled) {
-            float radius = sliderShadowRadius + sliderRadius;
-            if (radius * 2 > switchHeight) {
-                width += sliderShadowRadius * 2;
-                height += sliderShadowRadius * 2;
-            }
-        }
+    private int getDesiredWidth() {
+        int width = switchWidth + getShadowOffset() * 2;
+        return Math.max(width, getSuggestedMinimumWidth()) + getPaddingLeft() + getPaddingRight();
+    }
 
-        desiredWidth = Math.max(width, getSuggestedMinimumWidth()) + getPaddingLeft()
-                + getPaddingRight();
-        desiredHeight = Math.max(height, getSuggestedMinimumHeight()) + getPaddingTop()
+    private int getDesiredHeight() {
+        int height = switchHeight + getShadowOffset() * 2;
+        return Math.max(height, getSuggestedMinimumHeight()) + getPaddingTop()
                 + getPaddingBottom();
-        setMeasuredDimension(resolveSize(desiredWidth, widthMeasureSpec),
-                resolveSize(desiredHeight, heightMeasureSpec));
+    }
+
+    /**
+     * @return The space reserved around the track for the slider shadow, if it overflows the
+     * track.
+     */
+    private int getShadowOffset() {
+        return renderer.getShadowOffset();
     }
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
+        // Nothing is recomputed unless the bounds, the padding or the switch size has changed.
+        updateGeometry();
+    }
 
-        int offset = 0;
-        if (sliderShadowEnabled) {
-            float radius = sliderShadowRadius + sliderRadius;
-            if (radius * 2 > switchHeight) {
-                offset = (int) sliderShadowRadius;
-            } else {
-                offset = 0;
-            }
+    @Override
+    public void onRtlPropertiesChanged(int layoutDirection) {
+        super.onRtlPropertiesChanged(layoutDirection);
+        if (updateGeometry()) {
+            invalidate();
         }
+    }
 
-        if (!ViewUtils.isLayoutRtl(this)) {
-            switchRight = getWidth() - getPaddingRight() - offset;
-            switchLeft = switchRight - switchWidth;
-        } else {
-            switchLeft = getPaddingLeft() + offset;
-            switchRight = switchLeft + switchWidth;
+    /**
+     * Place the track and the slider in the current bounds.
+     * @return True if the geometry has changed, false otherwise.
+     */
+    private boolean updateGeometry() {
+        float fraction = geometry.fractionAt(sliderCenterX);
+        if (!geometry.update(getWidth(), getHeight(), getPaddingLeft(), getPaddingTop(),
+                getPaddingRight(), getPaddingBottom(), switchWidth, switchHeight,
+                getShadowOffset(), ViewUtils.isLayoutRtl(this))) {
+            return false;
         }
 
-        switchTop = (getPaddingTop() + getHeight() - getPaddingBottom()) / 2 - switchHeight / 2;
-        switchBottom = switchTop + switchHeight;
-
-        if (ViewUtils.isLayoutRtl(this)) {
-            sliderCenterStartX = switchLeft + switchWidth - switchHeight / 2f;
-            sliderCenterEndX = switchLeft + switchHeight / 2f;
+        if (isTransitionRunning() || touchMode == TOUCH_MODE_DRAGGING) {
+            // Keep the slider at the same place relative to the track.
+            sliderCenterX = geometry.sliderXAt(fraction);
         } else {
-            sliderCenterStartX = switchLeft + switchHeight / 2f;
-            sliderCenterEndX = switchLeft + switchWidth - switchHeight / 2f;
+            sliderCenterX = !checked ? geometry.sliderStartX : geometry.sliderEndX;
         }
+        return true;
+    }
 
-        sliderCenterX = !checked ? sliderCenterStartX : sliderCenterEndX;
-        sliderCenterY = switchTop + switchHeight / 2f;
-
-        sliderMoveRange = switchWidth - sliderRadius * 2;
+    /**
+     * Apply a change of the switch size or of the room for the slider shadow. A layout is only
+     * requested if the measured size would change, otherwise the track is placed again in the
+     * current bounds and redrawn, so that restyling many switches does not lay out the tree.
+     */
+    private void onSwitchSizeChanged() {
+        renderer.setSwitchSize(switchWidth, switchHeight);
+        if (measuredDesiredWidth != getDesiredWidth()
+                || measuredDesiredHeight != getDesiredHeight()) {
+            requestLayout();
+        } else {
+            updateGeometry();
+        }
+        invalidate();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        paint.setColor(trackColor);
+        pendingInvalidation = INVALIDATE_NONE;
+        drawnSliderCenterX = sliderCenterX;
+        drawnTrackColor = trackColor;
+
+        if (transitionMetricsActive) {
+            FrameScheduler frameScheduler = FrameScheduler.getInstance();
+            long startNanos = frameScheduler.nanoTime();
+            drawSwitch(canvas);
+            transitionMetrics.onDraw(startNanos, frameScheduler.nanoTime());
+        } else {
+            drawSwitch(canvas);
+        }
+    }
+
+    private void drawSwitch(Canvas canvas) {
+        renderer.draw(canvas, geometry, checked, isAtRest(), trackColor, sliderCenterX);
+    }
 
-        canvas.drawRoundRect(switchLeft, switchTop, switchRight, switchBottom, trackCornerRadius,
-                trackCornerRadius, paint);
-        canvas.drawCircle(sliderCenterX, sliderCenterY, sliderRadius, sliderPaint);
+    /**
+     * @return True if the slider and the track are at the resting state of the checked state.
+     */
+    private boolean isAtRest() {
+        return touchMode != TOUCH_MODE_DRAGGING && !isTransitionRunning()
+                && trackColor == (checked ? trackOnColor : trackOffColor)
+                && sliderCenterX == (checked ? geometry.sliderEndX : geometry.sliderStartX);
     }
 
     @Override
@@ -295,117 +495,181 @@ public class CupertinoSwitch extends View {
         }
 
         int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            if (velocityTracker == null) {
+                velocityTracker = VelocityTracker.obtain();
+            } else {
+                velocityTracker.clear();
+            }
+        }
+        if (velocityTracker != null) {
+            // The historical points of the batched moves are tracked too.
+            velocityTracker.addMovement(event);
+        }
+
         switch (action) {
             case MotionEvent.ACTION_DOWN:
+                // Same time base as System.nanoTime(), both are uptime based.
+                touchDownTimeNanos = event.getEventTime() * 1000000L;
                 touchX = event.getX();
                 touchMode = TOUCH_MODE_DOWN;
-                return containPoint(event.getX(), event.getY());
+                if (touchPredictionEnabled) {
+                    Display display = getDisplay();
+                    float refreshRate = display != null ? display.getRefreshRate() : 60f;
+                    touchPredictionNanos = (long) (1000000000L / refreshRate);
+                }
+                return geometry.contains(event.getX(), event.getY());
             case MotionEvent.ACTION_MOVE:
                 switch (touchMode) {
                     case TOUCH_MODE_IDLE:
                         break;
-                    case TOUCH_MODE_DOWN: // start dragging
+                    case TOUCH_MODE_DOWN:
+                        // Still a tap until the touch moves past the slop.
+                        if (Math.abs(event.getX() - touchX) <= touchSlop) {
+                            break;
+                        }
                         touchMode = TOUCH_MODE_DRAGGING;
                         touchX = event.getX();
-                        break;
-                    case TOUCH_MODE_DRAGGING:// dragging
-                        float eventX = event.getX();
-                        float offset;
-                        float colorOffset;
-                        boolean toEnd;
-
-                        if (ViewUtils.isLayoutRtl(this)) {
-                            eventX = constrain(eventX, sliderCenterEndX, sliderCenterStartX);
-                            offset = -(eventX - touchX) / sliderMoveRange;
-                            toEnd = eventX < touchX;
-                        } else {
-                            eventX = constrain(eventX, sliderCenterStartX, sliderCenterEndX);
-                            offset = (eventX - touchX) / sliderMoveRange;
-                            toEnd = eventX > touchX;
+                        // The touch takes the slider over from the running transition.
+                        stopTransition();
+                        ViewParent parent = getParent();
+                        if (parent != null) {
+                            parent.requestDisallowInterceptTouchEvent(true);
                         }
-
-                        if (toEnd) {
-                            colorOffset = offset;
-                        } else {
-                            colorOffset = 1 + offset;
+                        // fall through, the slider follows the touch from now on
+                    case TOUCH_MODE_DRAGGING:// dragging
+                        float x = event.getX();
+                        if (touchPredictionEnabled) {
+                            velocityTracker.computeCurrentVelocity(1000, maximumFlingVelocity);
+                            x += velocityTracker.getXVelocity() * touchPredictionNanos
+                                    / 1000000000f;
                         }
-
-                        sliderCenterX = (int) eventX;
-                        trackColor = (int) trackColorEvaluator.evaluate(colorOffset, trackOffColor,
-                                trackOnColor);
-                        invalidate();
+                        sliderCenterX = (int) geometry.constrainSliderX(x);
+                        // The track color follows the slider position.
+                        float fraction = geometry.fractionAt(sliderCenterX);
+                        trackColor = trackColorAt(fraction);
+                        invalidateIfChanged();
                         break;
                 }
                 return true;
             case MotionEvent.ACTION_UP:
-                if ((event.getEventTime() - event.getDownTime()) <= ViewConfiguration.getTapTimeout()) {
+                // Not dragging anymore, so that the switch moves and is drawn at rest.
+                int releasedMode = touchMode;
+                touchMode = TOUCH_MODE_IDLE;
+                if (releasedMode == TOUCH_MODE_DRAGGING) {
+                    // However short, a drag settles where it is flung or released.
+                    settleDrag(true);
+                } else if (releasedMode == TOUCH_MODE_DOWN) {
+                    // The touch never moved past the slop.
                     performClick();
-                } else {
-                    if (touchMode == TOUCH_MODE_DRAGGING) {
-                        float offset = Math.abs((sliderCenterX - sliderCenterStartX) / sliderMoveRange);
-                        boolean newState = offset > 0.5f;
-                        setChecked(newState);
-                    }
-                    touchMode = TOUCH_MODE_IDLE;
                 }
+                touchDownTimeNanos = 0;
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                if (touchMode == TOUCH_MODE_DRAGGING) {
+                    settleDrag(false);
+                }
+                touchMode = TOUCH_MODE_IDLE;
+                touchDownTimeNanos = 0;
                 return true;
             default:
                 return super.onTouchEvent(event);
         }
     }
 
+    /**
+     * Move the dragged slider to the state it is released towards.
+     * @param fling True to let the release velocity decide the state, false to settle to the
+     *              nearest state.
+     */
+    private void settleDrag(boolean fling) {
+        touchMode = TOUCH_MODE_IDLE;
+        float range = geometry.sliderEndX - geometry.sliderStartX;
+        float velocity = 0;
+        if (fling && range != 0) {
+            velocityTracker.computeCurrentVelocity(1000, maximumFlingVelocity);
+            float velocityX = velocityTracker.getXVelocity();
+            if (Math.abs(velocityX) >= minimumFlingVelocity) {
+                // In fractions of the track per second, positive towards the on state.
+                velocity = velocityX / range;
+            }
+        }
+
+        boolean shouldChecked = velocity != 0 ? velocity > 0
+                : geometry.fractionAt(sliderCenterX) > 0.5f;
+        if (getWindowToken() != null && ViewCompat.isLaidOut(this)) {
+            animateSlider(shouldChecked, velocity);
+        } else {
+            setUpSwitch(shouldChecked);
+        }
+    }
+
     @Override
     public boolean performClick() {
-        setChecked(!checked);
+        // A click during a transition reverses it.
+        setChecked(!(isTransitionRunning() ? animationTargetChecked : checked));
         return super.performClick();
     }
 
     /**
-     * Check whether the specified point is inside the drawn content.
-     * @param x The x-coordinate of specified point
-     * @param y The y-coordinate of specified point
-     * @return true if specified point inside the drawn content, false otherwise.
+     * Pass the slider and shadow attributes to the renderer, the shared pre-rendered slider is
+     * resolved again if they have changed.
      */
-    private boolean containPoint(float x, float y) {
-        float semicircleRadius = switchHeight / 2f;
-        float leftSemicircleCenterX = switchLeft + semicircleRadius;
-        float leftSemicircleCenterY = switchTop + semicircleRadius;
-        float rightSemicircleCenterX = switchRight - semicircleRadius;
-        RectF centerRect = new RectF(switchLeft + semicircleRadius, switchTop,
-                switchRight - semicircleRadius, switchBottom);
+    private void updateSliderShadow() {
+        renderer.setSlider(sliderRadius, sliderColor, sliderShadowEnabled, sliderShadowRadius,
+                sliderShadowColor);
+    }
 
-        double leftDistance;
-        double rightDistance;
-        boolean inSemicircle;
-        boolean inCenterRect;
+    /**
+     * Invalidate the view if the slider or the track looks different from the last drawn frame,
+     * at most once per frame. Only the slider bounds are invalidated if the track has not changed
+     * and the view is software rendered, the dirty area is ignored by hardware rendering.
+     */
+    @SuppressWarnings("deprecation")
+    private void invalidateIfChanged() {
+        if (pendingInvalidation == INVALIDATE_ALL) {
+            return;
+        }
 
-        if (x < switchLeft || x > switchRight || y < switchTop || y > switchBottom) {
-            return false;
+        boolean trackChanged = trackColor != drawnTrackColor;
+        boolean sliderMoved = sliderCenterX != drawnSliderCenterX;
+        if (!trackChanged && !sliderMoved) {
+            return;
         }
 
-        // The distance from the point to the left semicircle's center
-        leftDistance = computePointsDistance(x, y, leftSemicircleCenterX,
-                leftSemicircleCenterY);
-        // The distance from the point to the right semicircle's center
-        rightDistance = computePointsDistance(x, y, rightSemicircleCenterX,
-                leftSemicircleCenterY);
+        if (trackChanged || isHardwareAccelerated() || Float.isNaN(drawnSliderCenterX)) {
+            pendingInvalidation = INVALIDATE_ALL;
+            invalidate();
+        } else {
+            // Both the previous and the new slider position are dirty.
+            int extent = renderer.getSliderExtent();
+            int left = (int) Math.floor(Math.min(sliderCenterX, drawnSliderCenterX)) - extent;
+            int right = (int) Math.ceil(Math.max(sliderCenterX, drawnSliderCenterX)) + extent;
+            int top = (int) Math.floor(geometry.sliderCenterY) - extent;
+            int bottom = (int) Math.ceil(geometry.sliderCenterY) + extent;
+            pendingInvalidation = INVALIDATE_SLIDER;
+            invalidate(left, top, right, bottom);
+        }
+    }
 
-        inSemicircle = leftDistance <= semicircleRadius || rightDistance <= semicircleRadius;
-        inCenterRect = x >= centerRect.left && x <= centerRect.right && y >= centerRect.top
-                && y <= centerRect.bottom;
-        return inSemicircle || inCenterRect;
+    /**
+     * Move the track color to the resting state color, if not in transition.
+     */
+    private void updateRestingTrackColor() {
+        if (!isTransitionRunning() && touchMode != TOUCH_MODE_DRAGGING) {
+            trackColor = checked ? trackOnColor : trackOffColor;
+        }
     }
 
     /**
-     * Calculate the distance between two given points.
-     * @param x1 The x-coordinate of first point
-     * @param y1 The y-coordinate of first point
-     * @param x2 The x-coordinate of second point
-     * @param y2 The y-coordinate of second point
-     * @return the distance between points.
+     * @param position The slider position, 0 at the off state and 1 at the on state.
+     * @return The track color at this position, looked up in the shared blend of the colors.
      */
-    private double computePointsDistance(double x1, double y1, double x2, double y2) {
-        return Math.sqrt(Math.pow(x1 - x2, 2) + Math.pow(y1 - y2, 2));
+    private int trackColorAt(float position) {
+        if (trackColorRamp == null) {
+            trackColorRamp = TrackColorRamp.get(trackOffColor, trackOnColor, trackColorBlend);
+        }
+        return trackColorRamp.colorAt(position);
     }
 
     private float constrain(float amount, float low, float high) {
@@ -425,9 +689,13 @@ public class CupertinoSwitch extends View {
      * @param switchWidth width pixel size.
      */
     public void setSwitchWidth(@Dimension int switchWidth) {
+        if (this.switchWidth == switchWidth) {
+            return;
+        }
         this.switchWidth = switchWidth;
         this.switchHeight = (int) constrain(switchHeight, 0, switchWidth);
-        requestLayout();
+        trackCornerRadius = this.switchHeight / 2;
+        onSwitchSizeChanged();
     }
 
     /**
@@ -443,10 +711,13 @@ public class CupertinoSwitch extends View {
      * @param switchHeight height pixel size.
      */
     public void setSwitchHeight(@Dimension int switchHeight) {
-        this.switchHeight = (int) constrain(switchHeight, 0, switchWidth);
-
-        trackCornerRadius = switchHeight / 2;
-        requestLayout();
+        int height = (int) constrain(switchHeight, 0, switchWidth);
+        if (this.switchHeight == height) {
+            return;
+        }
+        this.switchHeight = height;
+        trackCornerRadius = height / 2;
+        onSwitchSizeChanged();
     }
 
     /**
@@ -462,9 +733,48 @@ public class CupertinoSwitch extends View {
      * @param switchDuration duration in milliseconds.
      */
     public void setSwitchDuration(int switchDuration) {
+        // Applied from the next transition, scaled by the system settings.
         this.switchDuration = switchDuration;
-        sliderAnimator.setDuration(switchDuration);
-        trackAnimator.setDuration(switchDuration);
+    }
+
+    /**
+     * @return How the slider moves to a new state.
+     */
+    @SwitchAnimation
+    public int getSwitchAnimation() {
+        return switchAnimation;
+    }
+
+    /**
+     * Set how the slider moves to a new state, the running transition is not affected.
+     * @param switchAnimation One of {@link #SWITCH_ANIMATION_TIMED} or
+     *                        {@link #SWITCH_ANIMATION_SPRING}.
+     */
+    public void setSwitchAnimation(@SwitchAnimation int switchAnimation) {
+        this.switchAnimation = switchAnimation;
+    }
+
+    /**
+     * @return How the track color is blended during a transition.
+     */
+    @TrackColorBlend
+    public int getTrackColorBlend() {
+        return trackColorBlend;
+    }
+
+    /**
+     * Set how the track color is blended from the off to the on color during a transition, the
+     * blend is precomputed once per palette and shared by every switch using it.
+     * @param trackColorBlend One of {@link #TRACK_COLOR_BLEND_LINEAR} or
+     *                        {@link #TRACK_COLOR_BLEND_PERCEPTUAL}.
+     */
+    public void setTrackColorBlend(@TrackColorBlend int trackColorBlend) {
+        if (this.trackColorBlend == trackColorBlend) {
+            return;
+        }
+        this.trackColorBlend = trackColorBlend;
+        trackColorRamp = null;
+        // The track is only blended while moving, it is redrawn on the next frame.
     }
 
     /**
@@ -480,8 +790,16 @@ public class CupertinoSwitch extends View {
      * @param trackOnColor A color value in the form 0xAARRGGBB.
      */
     public void setTrackOnColor(@ColorInt int trackOnColor) {
+        if (this.trackOnColor == trackOnColor) {
+            return;
+        }
         this.trackOnColor = trackOnColor;
-        invalidate();
+        trackColorRamp = null;
+        updateRestingTrackColor();
+        // Not visible while off, except during a transition.
+        if (checked || isTransitionRunning() || touchMode == TOUCH_MODE_DRAGGING) {
+            invalidate();
+        }
     }
 
     /**
@@ -497,8 +815,16 @@ public class CupertinoSwitch extends View {
      * @param trackOffColor A color value in the form 0xAARRGGBB.
      */
     public void setTrackOffColor(@ColorInt int trackOffColor) {
+        if (this.trackOffColor == trackOffColor) {
+            return;
+        }
         this.trackOffColor = trackOffColor;
-        invalidate();
+        trackColorRamp = null;
+        updateRestingTrackColor();
+        // Not visible while on, except during a transition.
+        if (!checked || isTransitionRunning() || touchMode == TOUCH_MODE_DRAGGING) {
+            invalidate();
+        }
     }
 
     /**
@@ -514,7 +840,11 @@ public class CupertinoSwitch extends View {
      * @param sliderColor A color value in the form 0xAARRGGBB.
      */
     public void setSliderColor(@ColorInt int sliderColor) {
+        if (this.sliderColor == sliderColor) {
+            return;
+        }
         this.sliderColor = sliderColor;
+        updateSliderShadow();
         invalidate();
     }
 
@@ -531,10 +861,15 @@ public class CupertinoSwitch extends View {
      * @param sliderRadius The slider pixel size.
      */
     public void setSliderRadius(int sliderRadius) {
-        this.sliderRadius = (int) constrain(sliderRadius,
-                ViewUtils.dpToPx(getContext(), MIN_SLIDER_RADIUS),
-                trackCornerRadius);
-        invalidate();
+        int radius = (int) constrain(sliderRadius, minSliderRadius, trackCornerRadius);
+        if (this.sliderRadius == radius) {
+            return;
+        }
+        this.sliderRadius = radius;
+        updateSliderShadow();
+        // The slider moves between the track semicircles whatever its radius, only the room for
+        // its shadow may change.
+        onSwitchSizeChanged();
     }
 
     /**
@@ -550,13 +885,12 @@ public class CupertinoSwitch extends View {
      * @param sliderShadowEnabled True if this slider shadow is enabled, false otherwise.
      */
     public void setSliderShadowEnabled(boolean sliderShadowEnabled) {
-        this.sliderShadowEnabled = sliderShadowEnabled;
-        if (sliderShadowEnabled) {
-            sliderPaint.setShadowLayer(sliderShadowRadius, 0, 0, sliderShadowColor);
-        } else {
-            sliderPaint.clearShadowLayer();
+        if (this.sliderShadowEnabled == sliderShadowEnabled) {
+            return;
         }
-        invalidate();
+        this.sliderShadowEnabled = sliderShadowEnabled;
+        updateSliderShadow();
+        onSwitchSizeChanged();
     }
 
     /**
@@ -572,13 +906,15 @@ public class CupertinoSwitch extends View {
      * @param sliderShadowColor A color value in the form 0xAARRGGBB.
      */
     public void setSliderShadowColor(@ColorInt int sliderShadowColor) {
+        if (this.sliderShadowColor == sliderShadowColor) {
+            return;
+        }
         this.sliderShadowColor = sliderShadowColor;
+        updateSliderShadow();
+        // Not visible without shadow.
         if (sliderShadowEnabled) {
-            sliderPaint.setShadowLayer(sliderShadowRadius, 0, 0, sliderShadowColor);
-        } else {
-            sliderPaint.clearShadowLayer();
+            invalidate();
         }
-        invalidate();
     }
 
     /**
@@ -593,13 +929,32 @@ public class CupertinoSwitch extends View {
      * @param sliderShadowRadius The slider shadow radius pixel size.
      */
     public void setSliderShadowRadius(@Dimension int sliderShadowRadius) {
+        if (this.sliderShadowRadius == sliderShadowRadius) {
+            return;
+        }
         this.sliderShadowRadius = sliderShadowRadius;
+        updateSliderShadow();
+        // Not visible without shadow.
         if (sliderShadowEnabled) {
-            sliderPaint.setShadowLayer(sliderShadowRadius, 0, 0, sliderShadowColor);
-        } else {
-            sliderPaint.clearShadowLayer();
+            onSwitchSizeChanged();
         }
-        invalidate();
+    }
+
+    /**
+     * @return True if the slider is drawn ahead of the touch while dragging, false otherwise.
+     */
+    public boolean isTouchPredictionEnabled() {
+        return touchPredictionEnabled;
+    }
+
+    /**
+     * Set whether the slider is drawn where the touch is predicted to be when the frame is
+     * displayed, extrapolated from the drag velocity. This reduces the perceived latency of
+     * dragging, at the cost of a small overshoot on sudden stops. Disabled by default.
+     * @param touchPredictionEnabled True to predict the touch position, false otherwise.
+     */
+    public void setTouchPredictionEnabled(boolean touchPredictionEnabled) {
+        this.touchPredictionEnabled = touchPredictionEnabled;
     }
 
     /**
@@ -616,54 +971,274 @@ public class CupertinoSwitch extends View {
     public void setChecked(boolean shouldChecked) {
         if (getWindowToken() != null && ViewCompat.isLaidOut(this)) {
             // Move the slider to new position with animation, if not laid out  yet.
-            animateSlider(shouldChecked);
+            animateSlider(shouldChecked, 0);
         } else {
             // Immediately move the thumb to the new position.
             setUpSwitch(shouldChecked);
         }
     }
 
-    private void animateSlider(boolean shouldChecked) {
-        float targetX;
-        int targetColor;
+    /**
+     * Move to the given state immediately, without animation and without notifying the
+     * {@link OnStateChangeListener}. The running transition, if any, is canceled.
+     * Intended for binding the state of recycled views, e.g. in a RecyclerView adapter.
+     * @param shouldChecked true to check the button, false to uncheck it.
+     */
+    public void jumpToState(boolean shouldChecked) {
+        if (moveSlider(shouldChecked)) {
+            dispatchedChecked = shouldChecked;
+        }
+    }
+
+    /**
+     * Move to the given state, animated or immediately, the {@link OnStateChangeListener} is
+     * notified of the change either way.
+     * @param shouldChecked true to check the button, false to uncheck it.
+     * @param animate true to animate the slider if laid out, false to move it immediately.
+     */
+    void applyState(boolean shouldChecked, boolean animate) {
+        if (animate && getWindowToken() != null && ViewCompat.isLaidOut(this)) {
+            animateSlider(shouldChecked, 0);
+            return;
+        }
+
+        boolean changed = checked != shouldChecked;
+        moveSlider(shouldChecked);
+        dispatchSettledChange(changed);
+    }
+
+    /**
+     * @return The group this switch has been added to, null if none.
+     */
+    @Nullable
+    CupertinoSwitchGroup getGroup() {
+        return group;
+    }
+
+    /**
+     * Called by {@link CupertinoSwitchGroup} when this switch is added or removed.
+     * @param group The group this switch belongs to, null if removed.
+     */
+    void setGroup(@Nullable CupertinoSwitchGroup group) {
+        this.group = group;
+    }
+
+    /**
+     * Move the slider to the given state immediately, stopping the running transition, the
+     * listener is not notified.
+     * @return True if the state or the slider has changed, false if already at rest there.
+     */
+    private boolean moveSlider(boolean shouldChecked) {
+        stopTransition();
+        touchMode = TOUCH_MODE_IDLE;
+
+        float targetX = shouldChecked ? geometry.sliderEndX : geometry.sliderStartX;
+        int targetColor = shouldChecked ? trackOnColor : trackOffColor;
+        if (checked == shouldChecked && sliderCenterX == targetX && trackColor == targetColor) {
+            // Nothing to redraw.
+            return false;
+        }
+
+        checked = shouldChecked;
+        sliderCenterX = targetX;
+        trackColor = targetColor;
+        invalidateIfChanged();
+        return true;
+    }
 
-        if (sliderAnimator.isRunning()) {
-            sliderAnimator.cancel();
+    /**
+     * Stop the running transition where the slider is, the state it was moving to is not reached.
+     */
+    private void stopTransition() {
+        if (sliderAnimator == null || !sliderAnimator.isRunning()) {
+            return;
         }
-        if (trackAnimator.isRunning()) {
-            trackAnimator.cancel();
+        sliderAnimator.cancel();
+        // Not reported, the transition has not completed.
+        transitionMetricsActive = false;
+        if (group != null) {
+            // No longer pending in the group, the transition has not completed.
+            group.onSwitchSettled(this, false);
         }
+    }
 
-        if (shouldChecked) {
-            targetX = sliderCenterEndX;
-            targetColor = trackOnColor;
-        } else {
-            targetX = sliderCenterStartX;
-            targetColor = trackOffColor;
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState(super.onSaveInstanceState());
+        // A transition in flight is saved as its end state.
+        savedState.checked = isTransitionRunning() ? animationTargetChecked : checked;
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
         }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
 
-        sliderAnimator.setFloatValues(sliderCenterX, targetX);
-        PropertyValuesHolder valuesHolder = PropertyValuesHolder.ofInt(PROPERTY_NAME_TRACK_COLOR,
-                trackColor, targetColor);
-        valuesHolder.setEvaluator(new ArgbEvaluator());
-        trackAnimator.setValues(valuesHolder);
-        sliderAnimator.start();
-        trackAnimator.start();
+        if (dispatchRunnable != null) {
+            // The restored state replaces the pending notification.
+            removeCallbacks(dispatchRunnable);
+        }
+        if (ViewCompat.isLaidOut(this)) {
+            jumpToState(savedState.checked);
+            return;
+        }
+        // Not drawn yet while the screen is rebuilt, the first frame draws the slider at rest, so
+        // neither an animation nor an invalidation is needed. onLayout places it again if the
+        // size has changed.
+        checked = savedState.checked;
+        dispatchedChecked = savedState.checked;
+        sliderCenterX = checked ? geometry.sliderEndX : geometry.sliderStartX;
+        trackColor = checked ? trackOnColor : trackOffColor;
     }
 
-    private void setUpSwitch(boolean shouldChecked) {
-        if (ViewUtils.isLayoutRtl(this)) {
-            sliderCenterStartX = switchWidth - sliderRadius;
-            sliderCenterEndX = sliderRadius;
+    /**
+     * @return True if the slider is moving to a new state, false otherwise.
+     */
+    boolean isTransitionRunning() {
+        return sliderAnimator != null && sliderAnimator.isRunning();
+    }
+
+    @VisibleForTesting
+    SwitchGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * @return The position of the slider, 0 at the off state and 1 at the on state.
+     */
+    @VisibleForTesting
+    float getSliderPosition() {
+        return geometry.fractionAt(sliderCenterX);
+    }
+
+    /**
+     * @return The track color currently drawn.
+     */
+    @VisibleForTesting
+    @ColorInt
+    int getTrackColor() {
+        return trackColor;
+    }
+
+    /**
+     * @param shouldChecked The state to move to.
+     * @param velocity The initial velocity of the slider, in fractions of the track per second,
+     *                 positive towards the on state.
+     */
+    private void animateSlider(boolean shouldChecked, float velocity) {
+        float targetX = shouldChecked ? geometry.sliderEndX : geometry.sliderStartX;
+        int targetColor = shouldChecked ? trackOnColor : trackOffColor;
+
+        if (sliderAnimator != null && sliderAnimator.isRunning()) {
+            if (animationTargetChecked == shouldChecked) {
+                // Already moving to the new state.
+                return;
+            }
+            if (switchAnimation != SWITCH_ANIMATION_SPRING) {
+                // Reverse from wherever the slider is, the current values stay continuous.
+                sliderAnimator.cancel();
+            }
+        } else if (checked == shouldChecked && sliderCenterX == targetX
+                && trackColor == targetColor) {
+            // Already at rest in the new state.
+            return;
+        }
+
+        animationStartFraction = geometry.fractionAt(sliderCenterX);
+        animationEndFraction = shouldChecked ? 1 : 0;
+        animationEndColor = targetColor;
+        animationTargetChecked = shouldChecked;
+        if (dispatchRunnable != null) {
+            // The new transition replaces the pending notification.
+            removeCallbacks(dispatchRunnable);
+        }
+        startTransitionMetrics();
+
+        SwitchAnimator animator = obtainSliderAnimator();
+        animator.setDuration(MotionSettings.scaleDuration(switchDuration));
+        // A running spring is retargeted, keeping its position and velocity.
+        animator.startTransition(switchAnimation == SWITCH_ANIMATION_SPRING,
+                animationStartFraction, animationEndFraction, velocity);
+    }
+
+    private void startTransitionMetrics() {
+        if (onTransitionMetricsListener == null) {
+            transitionMetricsActive = false;
+            return;
+        }
+        if (transitionMetrics == null) {
+            transitionMetrics = new TransitionMetrics();
+        }
+
+        Display display = getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : 60f;
+        transitionMetrics.start(FrameScheduler.getInstance().nanoTime(), touchDownTimeNanos,
+                (long) (1000000000L / refreshRate));
+        transitionMetricsActive = true;
+        touchDownTimeNanos = 0;
+    }
+
+    private void scheduleDispatch() {
+        if (dispatchRunnable == null) {
+            dispatchRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    dispatchSettledState();
+                }
+            };
+        }
+        removeCallbacks(dispatchRunnable);
+        postDelayed(dispatchRunnable, dispatchMode == DISPATCH_MODE_COALESCED ? dispatchWindow : 0);
+    }
+
+    /**
+     * Notify the listener of a settled state, according to the dispatch mode.
+     * @param changed True if the checked state has changed.
+     */
+    private void dispatchSettledChange(boolean changed) {
+        if (dispatchMode == DISPATCH_MODE_IMMEDIATE) {
+            if (changed) {
+                dispatchStateChanged();
+            }
         } else {
-            sliderCenterStartX = sliderRadius;
-            sliderCenterEndX = switchWidth - sliderRadius;
+            scheduleDispatch();
         }
+    }
+
+    private void dispatchSettledState() {
+        // A running transition schedules the notification again when it ends.
+        if (!isTransitionRunning() && checked != dispatchedChecked) {
+            dispatchStateChanged();
+        }
+    }
+
+    private void dispatchStateChanged() {
+        dispatchedChecked = checked;
+        if (asyncStateDispatcher != null) {
+            asyncStateDispatcher.enqueue(checked);
+        } else if (onStateChangeListener != null) {
+            onStateChangeListener.onChanged(this, checked);
+
+            if (checked) {
+                onStateChangeListener.onSwitchOn(this);
+            } else {
+                onStateChangeListener.onSwitchOff(this);
+            }
+        }
+    }
+
+    private void setUpSwitch(boolean shouldChecked) {
+        // The slider bounds are resolved in onLayout, and recomputed there if not laid out yet.
         checked = shouldChecked;
-        sliderCenterX = shouldChecked ? sliderCenterEndX : sliderCenterStartX;
-        sliderCenterY = switchTop + switchHeight / 2f;
+        dispatchedChecked = shouldChecked;
+        sliderCenterX = shouldChecked ? geometry.sliderEndX : geometry.sliderStartX;
         trackColor = shouldChecked ? trackOnColor : trackOffColor;
-        invalidate();
+        invalidateIfChanged();
     }
 
     /**
@@ -672,6 +1247,137 @@ public class CupertinoSwitch extends View {
      */
     public void setOnStateChangeListener(@Nullable OnStateChangeListener onStateChangeListener) {
         this.onStateChangeListener = onStateChangeListener;
+        this.asyncStateDispatcher = null;
+    }
+
+    /**
+     * Register a callback to be invoked on the given executor when the checked state of this
+     * button changes. The changes are delivered in order, at most
+     * {@value AsyncStateDispatcher#DEFAULT_CAPACITY} changes are kept pending and the oldest one
+     * is dropped when the executor falls behind.
+     * Unless the executor runs its tasks on the main thread, the callback must not touch the view.
+     * @param onStateChangeListener the callback to call on checked state change
+     * @param executor the executor to call the callback on, null to call it on the main thread.
+     */
+    public void setOnStateChangeListener(@Nullable OnStateChangeListener onStateChangeListener,
+                                         @Nullable Executor executor) {
+        this.onStateChangeListener = onStateChangeListener;
+        this.asyncStateDispatcher = onStateChangeListener != null && executor != null
+                ? new AsyncStateDispatcher(this, onStateChangeListener, executor,
+                        AsyncStateDispatcher.DEFAULT_CAPACITY)
+                : null;
+    }
+
+    /**
+     * @return How the {@link OnStateChangeListener} is notified.
+     */
+    @DispatchMode
+    public int getDispatchMode() {
+        return dispatchMode;
+    }
+
+    /**
+     * Set how the {@link OnStateChangeListener} is notified. In the deferred modes, the listener is
+     * only notified of the state the switch has settled in, and never if it is the same as the
+     * last notified state.
+     * @param dispatchMode One of {@link #DISPATCH_MODE_IMMEDIATE}, {@link #DISPATCH_MODE_SETTLED}
+     *                     or {@link #DISPATCH_MODE_COALESCED}.
+     */
+    public void setDispatchMode(@DispatchMode int dispatchMode) {
+        this.dispatchMode = dispatchMode;
+    }
+
+    /**
+     * @return The dispatch window of {@link #DISPATCH_MODE_COALESCED}, in milliseconds.
+     */
+    public long getDispatchWindow() {
+        return dispatchWindow;
+    }
+
+    /**
+     * Set how long the switch must stay settled before notifying the listener, used by
+     * {@link #DISPATCH_MODE_COALESCED}.
+     * @param dispatchWindow The window in milliseconds.
+     */
+    public void setDispatchWindow(long dispatchWindow) {
+        this.dispatchWindow = Math.max(0, dispatchWindow);
+    }
+
+    /**
+     * Register a callback to be invoked with the frame timing of each completed transition.
+     * Transitions reversed before their end are not reported.
+     * @param onTransitionMetricsListener the callback to call when a transition has ended, null
+     *                                    to stop measuring.
+     */
+    public void setOnTransitionMetricsListener(
+            @Nullable OnTransitionMetricsListener onTransitionMetricsListener) {
+        this.onTransitionMetricsListener = onTransitionMetricsListener;
+        if (onTransitionMetricsListener == null) {
+            transitionMetricsActive = false;
+        }
+    }
+
+    /**
+     * The callback to invoked with the frame timing of a switch transition.
+     */
+    public interface OnTransitionMetricsListener {
+        /**
+         * Called when a transition has ended.
+         * @param view The view whose transition has ended.
+         * @param metrics The frame timing of the transition, only valid during this call.
+         */
+        void onTransitionMetrics(CupertinoSwitch view, TransitionMetrics metrics);
+    }
+
+    /**
+     * The saved checked state, a transition in flight is saved as its end state, so that the
+     * restored switch is at rest.
+     */
+    static class SavedState extends BaseSavedState {
+        boolean checked;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel source) {
+            super(source);
+            checked = source.readInt() != 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(checked ? 1 : 0);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR =
+                new Parcelable.Creator<SavedState>() {
+                    @Override
+                    public SavedState createFromParcel(Parcel source) {
+                        return new SavedState(source);
+                    }
+
+                    @Override
+                    public SavedState[] newArray(int size) {
+                        return new SavedState[size];
+                    }
+                };
+    }
+
+    @IntDef({SWITCH_ANIMATION_TIMED, SWITCH_ANIMATION_SPRING})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface SwitchAnimation {
+    }
+
+    @IntDef({TRACK_COLOR_BLEND_LINEAR, TRACK_COLOR_BLEND_PERCEPTUAL})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface TrackColorBlend {
+    }
+
+    @IntDef({DISPATCH_MODE_IMMEDIATE, DISPATCH_MODE_SETTLED, DISPATCH_MODE_COALESCED})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface DispatchMode {
     }
 
     /**
@@ -0,0 +1,291 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.Drawable;
+import android.util.LayoutDirection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.graphics.drawable.DrawableCompat;
+
+/**
+ * The switch as a {@link Drawable}, for rows that only need the visual of a switch, e.g. as the
+ * compound drawable of a {@link android.widget.TextView} or the content of an
+ * {@link android.widget.ImageView}, without an extra {@link CupertinoSwitch} in the hierarchy.
+ * It looks and moves like the view with the same {@link CupertinoSwitchStyle}, and it follows the
+ * {@link android.R.attr#state_checked} state of its host, e.g. a
+ * {@link android.widget.CheckedTextView}.
+ */
+public class CupertinoSwitchDrawable extends Drawable implements Animatable {
+    private static final int[] CHECKED_STATE_SET = {android.R.attr.state_checked};
+
+    private final SwitchGeometry geometry = new SwitchGeometry();
+    private final SwitchRenderer renderer;
+    private final SwitchAnimator animator;
+
+    /** The application context, the motion settings are observed in. */
+    private final Context context;
+
+    private final int switchWidth;
+    private final int switchHeight;
+    private final int switchDuration;
+    private final int switchAnimation;
+
+    /** The shared blend of the track colors. */
+    private final TrackColorRamp trackColorRamp;
+
+    /** The space reserved around the track for the slider shadow. */
+    private final int shadowOffset;
+
+    private boolean checked;
+    private boolean targetChecked;
+
+    /** The slider position, 0 at the off state and 1 at the on state. */
+    private float position;
+    private float animationStartPosition;
+
+    /**
+     * Refreshes the shadow when the battery saver is toggled, registered while a transition runs,
+     * so that the duration scale is up to date when a transition starts.
+     */
+    private final MotionSettings.Listener motionSettingsListener = new MotionSettings.Listener() {
+        @Override
+        public void onMotionSettingsChanged() {
+            if (renderer.refreshSliderShadow()) {
+                invalidateSelf();
+            }
+        }
+    };
+
+    /**
+     * Create a drawable with the default switch style of the context theme.
+     * @param context The context whose theme the style is resolved from.
+     */
+    public CupertinoSwitchDrawable(@NonNull Context context) {
+        this(context, CupertinoSwitchStyle.obtain(context));
+    }
+
+    /**
+     * Create a drawable with an already resolved switch style, skipping the attribute resolution.
+     * @param context The context the motion settings are observed in.
+     * @param style The shared style, see {@link CupertinoSwitchStyle#obtain(Context, int)}.
+     */
+    public CupertinoSwitchDrawable(@NonNull Context context, @NonNull CupertinoSwitchStyle style) {
+        this.context = context.getApplicationContext();
+        switchWidth = style.getSwitchWidth();
+        switchHeight = style.getSwitchHeight();
+        switchDuration = style.getSwitchDuration();
+        switchAnimation = style.getSwitchAnimation();
+        trackColorRamp = TrackColorRamp.get(style.getTrackOffColor(), style.getTrackOnColor(),
+                style.getTrackColorBlend());
+        renderer = new SwitchRenderer(style);
+        shadowOffset = renderer.getShadowOffset();
+
+        // No view to check the visibility of, the host stops the animation when hidden.
+        animator = new SwitchAnimator(null, new SwitchAnimator.Callback() {
+            @Override
+            public void onAnimationUpdate(float fraction) {
+                if (animator.isSpring()) {
+                    // The spring position is the slider position, it stops at the track ends.
+                    position = Math.max(0, Math.min(1, fraction));
+                } else {
+                    float end = targetChecked ? 1 : 0;
+                    position = animationStartPosition + (end - animationStartPosition) * fraction;
+                }
+                invalidateSelf();
+            }
+
+            @Override
+            public void onAnimationEnd() {
+                position = targetChecked ? 1 : 0;
+                checked = targetChecked;
+                MotionSettings.unregister(motionSettingsListener);
+                invalidateSelf();
+            }
+        });
+    }
+
+    /**
+     * @return True if the switch is checked or moving to the checked state, false otherwise.
+     */
+    public boolean isChecked() {
+        return targetChecked;
+    }
+
+    /**
+     * Switch to the new state, animated if the drawable is visible and has a callback, e.g. it is
+     * set on a view.
+     * @param shouldChecked true to check the switch, false to uncheck it.
+     */
+    public void setChecked(boolean shouldChecked) {
+        if (isVisible() && getCallback() != null) {
+            animateSlider(shouldChecked);
+        } else {
+            targetChecked = shouldChecked;
+            jumpToCurrentState();
+        }
+    }
+
+    private void animateSlider(boolean shouldChecked) {
+        float target = shouldChecked ? 1 : 0;
+        if (animator.isRunning() ? targetChecked == shouldChecked
+                : checked == shouldChecked && position == target) {
+            // Already moving to, or at rest in the new state.
+            return;
+        }
+
+        targetChecked = shouldChecked;
+        animationStartPosition = position;
+        // Up to date once registered, even if no switch is attached.
+        MotionSettings.register(context, motionSettingsListener);
+        renderer.refreshSliderShadow();
+        animator.setDuration(MotionSettings.scaleDuration(switchDuration));
+        // A running spring is retargeted, keeping its position and velocity.
+        animator.startTransition(switchAnimation == CupertinoSwitch.SWITCH_ANIMATION_SPRING,
+                position, target, 0);
+    }
+
+    /**
+     * Move the slider to the checked state immediately, stopping the running transition.
+     */
+    @Override
+    public void jumpToCurrentState() {
+        animator.cancel();
+        MotionSettings.unregister(motionSettingsListener);
+        float target = targetChecked ? 1 : 0;
+        if (checked != targetChecked || position != target) {
+            checked = targetChecked;
+            position = target;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Replay the transition from the other state to the checked state, if not running.
+     */
+    @Override
+    public void start() {
+        if (!animator.isRunning()) {
+            checked = !targetChecked;
+            position = checked ? 1 : 0;
+            animateSlider(targetChecked);
+        }
+    }
+
+    /**
+     * Stop the running transition, the slider jumps to the checked state.
+     */
+    @Override
+    public void stop() {
+        jumpToCurrentState();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return animator.isRunning();
+    }
+
+    @Override
+    public boolean isStateful() {
+        return true;
+    }
+
+    @Override
+    protected boolean onStateChange(int[] state) {
+        boolean shouldChecked = false;
+        for (int attr : state) {
+            if (attr == CHECKED_STATE_SET[0]) {
+                shouldChecked = true;
+                break;
+            }
+        }
+        if (shouldChecked == targetChecked) {
+            return false;
+        }
+        setChecked(shouldChecked);
+        return true;
+    }
+
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        boolean changed = super.setVisible(visible, restart);
+        if (!visible) {
+            // Nothing to animate while hidden.
+            jumpToCurrentState();
+        }
+        return changed;
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return switchWidth + shadowOffset * 2;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return switchHeight + shadowOffset * 2;
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        updateGeometry();
+    }
+
+    @Override
+    public boolean onLayoutDirectionChanged(int layoutDirection) {
+        updateGeometry();
+        return true;
+    }
+
+    private void updateGeometry() {
+        Rect bounds = getBounds();
+        boolean rtl = DrawableCompat.getLayoutDirection(this) == LayoutDirection.RTL;
+        geometry.update(bounds.width(), bounds.height(), 0, 0, 0, 0, switchWidth, switchHeight,
+                shadowOffset, rtl);
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        if (!animator.isRunning()) {
+            // Not observed while idle, the battery saver may have been toggled since.
+            MotionSettings.refresh(context);
+        }
+        renderer.refreshSliderShadow();
+
+        Rect bounds = getBounds();
+        int saveCount = canvas.save();
+        canvas.translate(bounds.left, bounds.top);
+        boolean atRest = !animator.isRunning() && position == (checked ? 1 : 0);
+        renderer.draw(canvas, geometry, checked, atRest, trackColorRamp.colorAt(position),
+                geometry.sliderXAt(position));
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        renderer.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getAlpha() {
+        return renderer.getAlpha();
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        renderer.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
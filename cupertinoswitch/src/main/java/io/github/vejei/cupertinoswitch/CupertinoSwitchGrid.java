@@ -0,0 +1,738 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.util.AttributeSet;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.accessibility.AccessibilityEvent;
+import android.widget.Switch;
+
+import androidx.annotation.Dimension;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.customview.widget.ExploreByTouchHelper;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A single view drawing a grid of switches, for screens showing hundreds of them where one
+ * {@link CupertinoSwitch} view per setting would cost as many measure, layout and draw passes.
+ * The switches share one appearance, their states are kept in primitive arrays, they are drawn
+ * from one onDraw, touches are routed to them by index, and each one is exposed to the
+ * accessibility services as a virtual view.
+ */
+public class CupertinoSwitchGrid extends View {
+    private static final int TOUCH_MODE_IDLE = 0;
+    private static final int TOUCH_MODE_DOWN = 1;
+    private static final int TOUCH_MODE_DRAGGING = 2;
+
+    /** The geometry of a single cell, drawn and hit-tested relative to the cell origin. */
+    private final SwitchGeometry geometry = new SwitchGeometry();
+    private final AccessibilityHelper accessibilityHelper;
+
+    /** Draws the cells, one after the other. */
+    private SwitchRenderer renderer;
+
+    private int switchWidth;
+    private int switchHeight;
+    private int switchDuration;
+    private int switchAnimation;
+
+    /** The shared blend of the track colors. */
+    private TrackColorRamp trackColorRamp;
+
+    private int columnCount = 1;
+    private int cellSpacing;
+
+    /** The size of a cell, the track and the room for the slider shadow around it. */
+    private int cellWidth;
+    private int cellHeight;
+
+    /** The origin of the first cell, the first column is on the right if RTL. */
+    private int gridLeft;
+    private int gridTop;
+
+    private int switchCount;
+
+    /** The settled states, reported to the listener. */
+    private boolean[] checked = new boolean[0];
+
+    /** The states the switches are moving to, the same as the settled states at rest. */
+    private boolean[] targetChecked = new boolean[0];
+
+    /** The slider positions, 0 at the off state and 1 at the on state. */
+    private float[] positions = new float[0];
+
+    /** The positions the running transitions start from. */
+    private float[] animationStartPositions = new float[0];
+
+    /**
+     * Drive the transitions of the switches, each one created on its first transition and
+     * released when detached from the window.
+     */
+    private SwitchAnimator[] animators = new SwitchAnimator[0];
+
+    /** The accessibility labels, null if none is set. */
+    private CharSequence[] switchDescriptions;
+
+    /** Refreshes the shadow when the battery saver is toggled, registered while attached. */
+    private final MotionSettings.Listener motionSettingsListener = new MotionSettings.Listener() {
+        @Override
+        public void onMotionSettingsChanged() {
+            if (renderer.refreshSliderShadow()) {
+                invalidate();
+            }
+        }
+    };
+
+    private int touchMode;
+    private int touchIndex = -1;
+    private float touchX;
+    private int touchSlop;
+    private VelocityTracker velocityTracker;
+    private int minimumFlingVelocity;
+    private int maximumFlingVelocity;
+
+    /** {@link OnSwitchChangeListener} */
+    private OnSwitchChangeListener onSwitchChangeListener;
+
+    public CupertinoSwitchGrid(Context context) {
+        this(context, null);
+    }
+
+    public CupertinoSwitchGrid(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public CupertinoSwitchGrid(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        // The switch attributes can be set on the grid itself.
+        TypedArray switchArray = context.obtainStyledAttributes(attrs,
+                R.styleable.CupertinoSwitch, R.attr.cupertinoSwitchStyle, 0);
+        applyStyle(new CupertinoSwitchStyle(context, switchArray));
+        switchArray.recycle();
+
+        TypedArray typedArray = context.obtainStyledAttributes(attrs,
+                R.styleable.CupertinoSwitchGrid, defStyleAttr, 0);
+        columnCount = Math.max(1, typedArray.getInt(R.styleable.CupertinoSwitchGrid_columnCount,
+                1));
+        cellSpacing = typedArray.getDimensionPixelSize(R.styleable.CupertinoSwitchGrid_cellSpacing,
+                0);
+        int count = typedArray.getInt(R.styleable.CupertinoSwitchGrid_switchCount, 0);
+        typedArray.recycle();
+
+        accessibilityHelper = new AccessibilityHelper();
+        ViewCompat.setAccessibilityDelegate(this, accessibilityHelper);
+        setSwitchCount(count);
+    }
+
+    /**
+     * Create a grid with an already resolved switch style, skipping the attribute resolution.
+     * @param context The Context the view is running in.
+     * @param style The shared style, see {@link CupertinoSwitchStyle#obtain(Context, int)}.
+     */
+    public CupertinoSwitchGrid(Context context, CupertinoSwitchStyle style) {
+        super(context);
+        applyStyle(style);
+        accessibilityHelper = new AccessibilityHelper();
+        ViewCompat.setAccessibilityDelegate(this, accessibilityHelper);
+    }
+
+    private void applyStyle(CupertinoSwitchStyle style) {
+        ViewConfiguration configuration = ViewConfiguration.get(getContext());
+        touchSlop = configuration.getScaledTouchSlop();
+        minimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        maximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+
+        switchWidth = style.getSwitchWidth();
+        switchHeight = style.getSwitchHeight();
+        switchDuration = style.getSwitchDuration();
+        switchAnimation = style.getSwitchAnimation();
+        trackColorRamp = TrackColorRamp.get(style.getTrackOffColor(), style.getTrackOnColor(),
+                style.getTrackColorBlend());
+        renderer = new SwitchRenderer(style);
+    }
+
+    /**
+     * @return The number of switches in the grid.
+     */
+    public int getSwitchCount() {
+        return switchCount;
+    }
+
+    /**
+     * Set the number of switches in the grid, the states of the remaining switches are kept and
+     * the new switches are off.
+     * @param switchCount The number of switches.
+     */
+    public void setSwitchCount(int switchCount) {
+        switchCount = Math.max(0, switchCount);
+        if (this.switchCount == switchCount) {
+            return;
+        }
+
+        for (int i = switchCount; i < this.switchCount; i++) {
+            // The removed switches are not notified.
+            stopAnimation(i);
+        }
+        checked = Arrays.copyOf(checked, switchCount);
+        targetChecked = Arrays.copyOf(targetChecked, switchCount);
+        positions = Arrays.copyOf(positions, switchCount);
+        animationStartPositions = Arrays.copyOf(animationStartPositions, switchCount);
+        animators = Arrays.copyOf(animators, switchCount);
+        if (switchDescriptions != null) {
+            switchDescriptions = Arrays.copyOf(switchDescriptions, switchCount);
+        }
+        if (touchIndex >= switchCount) {
+            touchIndex = -1;
+            touchMode = TOUCH_MODE_IDLE;
+        }
+        this.switchCount = switchCount;
+
+        accessibilityHelper.invalidateRoot();
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * @return The number of columns of the grid.
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @param columnCount The number of columns of the grid, at least 1.
+     */
+    public void setColumnCount(int columnCount) {
+        columnCount = Math.max(1, columnCount);
+        if (this.columnCount != columnCount) {
+            this.columnCount = columnCount;
+            requestLayout();
+        }
+    }
+
+    /**
+     * @return The space between the cells, in pixels.
+     */
+    @Dimension
+    public int getCellSpacing() {
+        return cellSpacing;
+    }
+
+    /**
+     * @param cellSpacing The space between the cells, in pixels.
+     */
+    public void setCellSpacing(@Dimension int cellSpacing) {
+        cellSpacing = Math.max(0, cellSpacing);
+        if (this.cellSpacing != cellSpacing) {
+            this.cellSpacing = cellSpacing;
+            requestLayout();
+        }
+    }
+
+    /**
+     * @param index The index of the switch.
+     * @return True if the switch is checked, false otherwise.
+     */
+    public boolean isChecked(int index) {
+        checkIndex(index);
+        return checked[index];
+    }
+
+    /**
+     * Switch to the new state, animated if the grid is attached and laid out. The
+     * {@link OnSwitchChangeListener} is notified when the switch has settled.
+     * @param index The index of the switch.
+     * @param shouldChecked true to check the switch, false to uncheck it.
+     */
+    public void setChecked(int index, boolean shouldChecked) {
+        checkIndex(index);
+        if (getWindowToken() != null && ViewCompat.isLaidOut(this)) {
+            animateSlider(index, shouldChecked, 0);
+        } else {
+            jumpToState(index, shouldChecked);
+        }
+    }
+
+    /**
+     * Move the switch to the given state immediately, without animation and without notifying
+     * the {@link OnSwitchChangeListener}.
+     * @param index The index of the switch.
+     * @param shouldChecked true to check the switch, false to uncheck it.
+     */
+    public void jumpToState(int index, boolean shouldChecked) {
+        checkIndex(index);
+        stopAnimation(index);
+        if (touchIndex == index) {
+            touchMode = TOUCH_MODE_IDLE;
+        }
+
+        float position = shouldChecked ? 1 : 0;
+        if (checked[index] == shouldChecked && positions[index] == position) {
+            return;
+        }
+        checked[index] = shouldChecked;
+        targetChecked[index] = shouldChecked;
+        positions[index] = position;
+        accessibilityHelper.invalidateVirtualView(index);
+        invalidateCell(index);
+    }
+
+    /**
+     * Set the accessibility label of a switch.
+     * @param index The index of the switch.
+     * @param description The label, null to use a numbered default label.
+     */
+    public void setSwitchContentDescription(int index, @Nullable CharSequence description) {
+        checkIndex(index);
+        if (switchDescriptions == null) {
+            if (description == null) {
+                return;
+            }
+            switchDescriptions = new CharSequence[switchCount];
+        }
+        switchDescriptions[index] = description;
+        accessibilityHelper.invalidateVirtualView(index);
+    }
+
+    /**
+     * Register a callback to be invoked when the checked state of a switch changes.
+     * @param onSwitchChangeListener the callback to call on checked state change
+     */
+    public void setOnSwitchChangeListener(@Nullable OnSwitchChangeListener onSwitchChangeListener) {
+        this.onSwitchChangeListener = onSwitchChangeListener;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= switchCount) {
+            throw new IndexOutOfBoundsException("index: " + index + ", count: " + switchCount);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        MotionSettings.register(getContext(), motionSettingsListener);
+        renderer.refreshSliderShadow();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // Finish the running transitions, so that the state changes are not lost.
+        for (int i = 0; i < switchCount; i++) {
+            if (isAnimating(i)) {
+                stopAnimation(i);
+                positions[i] = targetChecked[i] ? 1 : 0;
+                settle(i);
+            }
+        }
+        Arrays.fill(animators, null);
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+        touchMode = TOUCH_MODE_IDLE;
+        MotionSettings.unregister(motionSettingsListener);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int offset = getShadowOffset();
+        cellWidth = switchWidth + offset * 2;
+        cellHeight = switchHeight + offset * 2;
+
+        int columns = Math.min(columnCount, Math.max(1, switchCount));
+        int rows = switchCount == 0 ? 0 : (switchCount + columnCount - 1) / columnCount;
+        int contentWidth = switchCount == 0 ? 0 : columns * cellWidth + (columns - 1) * cellSpacing;
+        int contentHeight = rows == 0 ? 0 : rows * cellHeight + (rows - 1) * cellSpacing;
+
+        int desiredWidth = Math.max(contentWidth, getSuggestedMinimumWidth()) + getPaddingLeft()
+                + getPaddingRight();
+        int desiredHeight = Math.max(contentHeight, getSuggestedMinimumHeight()) + getPaddingTop()
+                + getPaddingBottom();
+        setMeasuredDimension(resolveSize(desiredWidth, widthMeasureSpec),
+                resolveSize(desiredHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        boolean rtl = ViewUtils.isLayoutRtl(this);
+        geometry.update(cellWidth, cellHeight, 0, 0, 0, 0, switchWidth, switchHeight,
+                getShadowOffset(), rtl);
+
+        int columns = Math.min(columnCount, Math.max(1, switchCount));
+        int contentWidth = columns * cellWidth + (columns - 1) * cellSpacing;
+        gridLeft = rtl ? getWidth() - getPaddingRight() - contentWidth : getPaddingLeft();
+        gridTop = getPaddingTop();
+    }
+
+    /**
+     * @return The space reserved around the track for the slider shadow.
+     */
+    private int getShadowOffset() {
+        return renderer.getShadowOffset();
+    }
+
+    private int getCellLeft(int index) {
+        int column = index % columnCount;
+        if (geometry.isRtl()) {
+            column = Math.min(columnCount, switchCount) - 1 - column;
+        }
+        return gridLeft + column * (cellWidth + cellSpacing);
+    }
+
+    private int getCellTop(int index) {
+        return gridTop + index / columnCount * (cellHeight + cellSpacing);
+    }
+
+    /**
+     * Find the cell at the given point.
+     * @param x The x-coordinate of the point, in the view.
+     * @param y The y-coordinate of the point, in the view.
+     * @return The index of the cell, or -1 if there is none at this point.
+     */
+    private int findCell(float x, float y) {
+        float gridX = x - gridLeft;
+        float gridY = y - gridTop;
+        if (gridX < 0 || gridY < 0 || cellWidth <= 0 || cellHeight <= 0) {
+            return -1;
+        }
+
+        int column = (int) (gridX / (cellWidth + cellSpacing));
+        int row = (int) (gridY / (cellHeight + cellSpacing));
+        int columns = Math.min(columnCount, switchCount);
+        if (column >= columns || gridX - column * (cellWidth + cellSpacing) > cellWidth
+                || gridY - row * (cellHeight + cellSpacing) > cellHeight) {
+            // Past the grid, or in the space between the cells.
+            return -1;
+        }
+        if (geometry.isRtl()) {
+            column = columns - 1 - column;
+        }
+
+        int index = row * columnCount + column;
+        return index < switchCount ? index : -1;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        for (int i = 0; i < switchCount; i++) {
+            int left = getCellLeft(i);
+            int top = getCellTop(i);
+            // Only the cells in the dirty area are drawn, e.g. in a scrolling container.
+            if (canvas.quickReject(left, top, left + cellWidth, top + cellHeight,
+                    Canvas.EdgeType.AA)) {
+                continue;
+            }
+
+            canvas.save();
+            canvas.translate(left, top);
+            drawCell(canvas, i);
+            canvas.restore();
+        }
+    }
+
+    private void drawCell(Canvas canvas, int index) {
+        float position = positions[index];
+        boolean atRest = !isAnimating(index) && position == (checked[index] ? 1 : 0)
+                && !(touchMode == TOUCH_MODE_DRAGGING && touchIndex == index);
+        renderer.draw(canvas, geometry, checked[index], atRest, trackColorRamp.colorAt(position),
+                geometry.sliderXAt(position));
+    }
+
+    /**
+     * Invalidate the area of a single cell, the other cells are not redrawn in software.
+     */
+    @SuppressWarnings("deprecation")
+    private void invalidateCell(int index) {
+        int left = getCellLeft(index);
+        int top = getCellTop(index);
+        invalidate(left, top, left + cellWidth, top + cellHeight);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            if (velocityTracker == null) {
+                velocityTracker = VelocityTracker.obtain();
+            } else {
+                velocityTracker.clear();
+            }
+        }
+        if (velocityTracker != null) {
+            velocityTracker.addMovement(event);
+        }
+
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                touchIndex = findCell(event.getX(), event.getY());
+                if (touchIndex < 0 || !geometry.contains(event.getX() - getCellLeft(touchIndex),
+                        event.getY() - getCellTop(touchIndex))) {
+                    touchIndex = -1;
+                    touchMode = TOUCH_MODE_IDLE;
+                    return false;
+                }
+                touchMode = TOUCH_MODE_DOWN;
+                touchX = event.getX();
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (touchMode == TOUCH_MODE_DOWN) {
+                    if (Math.abs(event.getX() - touchX) <= touchSlop) {
+                        // Still a tap, the parent may yet take over a scroll.
+                        return true;
+                    }
+                    touchMode = TOUCH_MODE_DRAGGING;
+                    // The finger takes over the slider.
+                    stopAnimation(touchIndex);
+                    getParent().requestDisallowInterceptTouchEvent(true);
+                }
+                if (touchMode == TOUCH_MODE_DRAGGING) {
+                    float x = geometry.constrainSliderX(event.getX() - getCellLeft(touchIndex));
+                    float position = geometry.fractionAt(x);
+                    if (positions[touchIndex] != position) {
+                        positions[touchIndex] = position;
+                        invalidateCell(touchIndex);
+                    }
+                }
+                return true;
+            case MotionEvent.ACTION_UP:
+                if (touchMode == TOUCH_MODE_DRAGGING) {
+                    settleDrag(touchIndex, true);
+                } else if (touchMode == TOUCH_MODE_DOWN) {
+                    toggle(touchIndex);
+                    playSoundEffect(SoundEffectConstants.CLICK);
+                    accessibilityHelper.sendEventForVirtualView(touchIndex,
+                            AccessibilityEvent.TYPE_VIEW_CLICKED);
+                }
+                touchMode = TOUCH_MODE_IDLE;
+                touchIndex = -1;
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                if (touchMode == TOUCH_MODE_DRAGGING) {
+                    settleDrag(touchIndex, false);
+                }
+                touchMode = TOUCH_MODE_IDLE;
+                touchIndex = -1;
+                return true;
+            default:
+                return super.onTouchEvent(event);
+        }
+    }
+
+    /**
+     * Move a dragged slider to the state it is released towards.
+     * @param fling True to let the release velocity decide the state, false to settle to the
+     *              nearest state.
+     */
+    private void settleDrag(int index, boolean fling) {
+        touchMode = TOUCH_MODE_IDLE;
+        float range = geometry.sliderEndX - geometry.sliderStartX;
+        float velocity = 0;
+        if (fling && range != 0) {
+            velocityTracker.computeCurrentVelocity(1000, maximumFlingVelocity);
+            float velocityX = velocityTracker.getXVelocity();
+            if (Math.abs(velocityX) >= minimumFlingVelocity) {
+                // In fractions of the track per second, positive towards the on state.
+                velocity = velocityX / range;
+            }
+        }
+
+        boolean shouldChecked = velocity != 0 ? velocity > 0 : positions[index] > 0.5f;
+        animateSlider(index, shouldChecked, velocity);
+    }
+
+    private void toggle(int index) {
+        setChecked(index, !targetChecked[index]);
+    }
+
+    /**
+     * @param velocity The initial velocity of the slider, in fractions of the track per second,
+     *                 positive towards the on state.
+     */
+    private void animateSlider(int index, boolean shouldChecked, float velocity) {
+        float position = shouldChecked ? 1 : 0;
+        if (isAnimating(index) ? targetChecked[index] == shouldChecked
+                : checked[index] == shouldChecked && positions[index] == position) {
+            // Already moving to, or at rest in the new state.
+            return;
+        }
+
+        targetChecked[index] = shouldChecked;
+        animationStartPositions[index] = positions[index];
+        accessibilityHelper.invalidateVirtualView(index);
+
+        SwitchAnimator animator = obtainAnimator(index);
+        animator.setDuration(MotionSettings.scaleDuration(switchDuration));
+        // A running spring is retargeted, keeping its position and velocity.
+        animator.startTransition(switchAnimation == CupertinoSwitch.SWITCH_ANIMATION_SPRING,
+                positions[index], position, velocity);
+    }
+
+    private SwitchAnimator obtainAnimator(final int index) {
+        SwitchAnimator animator = animators[index];
+        if (animator == null) {
+            animator = new SwitchAnimator(this, new SwitchAnimator.Callback() {
+                @Override
+                public void onAnimationUpdate(float fraction) {
+                    onTransitionFrame(index, fraction);
+                }
+
+                @Override
+                public void onAnimationEnd() {
+                    onTransitionEnd(index);
+                }
+            });
+            animators[index] = animator;
+        }
+        return animator;
+    }
+
+    private boolean isAnimating(int index) {
+        return animators[index] != null && animators[index].isRunning();
+    }
+
+    private void stopAnimation(int index) {
+        if (animators[index] != null) {
+            animators[index].cancel();
+        }
+    }
+
+    private void onTransitionFrame(int index, float fraction) {
+        if (animators[index].isSpring()) {
+            // The spring position is the slider position, it stops at the track ends.
+            positions[index] = Math.max(0, Math.min(1, fraction));
+        } else {
+            float start = animationStartPositions[index];
+            float end = targetChecked[index] ? 1 : 0;
+            positions[index] = start + (end - start) * fraction;
+        }
+        invalidateCell(index);
+    }
+
+    private void onTransitionEnd(int index) {
+        positions[index] = targetChecked[index] ? 1 : 0;
+        invalidateCell(index);
+        settle(index);
+    }
+
+    private void settle(int index) {
+        boolean changed = checked[index] != targetChecked[index];
+        checked[index] = targetChecked[index];
+        if (changed && onSwitchChangeListener != null) {
+            onSwitchChangeListener.onSwitchChanged(this, index, checked[index]);
+        }
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return accessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent event) {
+        return accessibilityHelper.dispatchKeyEvent(event) || super.dispatchKeyEvent(event);
+    }
+
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction,
+                                  @Nullable Rect previouslyFocusedRect) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        accessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+    }
+
+    /**
+     * Exposes each switch of the grid as a virtual view.
+     */
+    private final class AccessibilityHelper extends ExploreByTouchHelper {
+        private final Rect bounds = new Rect();
+
+        AccessibilityHelper() {
+            super(CupertinoSwitchGrid.this);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            int index = findCell(x, y);
+            return index >= 0 ? index : INVALID_ID;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            for (int i = 0; i < switchCount; i++) {
+                virtualViewIds.add(i);
+            }
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int virtualViewId,
+                                                    @NonNull AccessibilityNodeInfoCompat node) {
+            if (virtualViewId >= switchCount) {
+                // Removed since the node was requested.
+                node.setContentDescription("");
+                node.setBoundsInParent(bounds);
+                return;
+            }
+
+            CharSequence description = switchDescriptions != null
+                    ? switchDescriptions[virtualViewId] : null;
+            node.setContentDescription(description != null ? description
+                    : getResources().getString(R.string.cupertino_switch_grid_item_description,
+                            virtualViewId + 1));
+            node.setClassName(Switch.class.getName());
+            node.setCheckable(true);
+            node.setChecked(targetChecked[virtualViewId]);
+            node.setEnabled(isEnabled());
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+
+            int left = getCellLeft(virtualViewId);
+            int top = getCellTop(virtualViewId);
+            bounds.set(left, top, left + cellWidth, top + cellHeight);
+            node.setBoundsInParent(bounds);
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action,
+                                                        @Nullable Bundle arguments) {
+            if (action != AccessibilityNodeInfoCompat.ACTION_CLICK || virtualViewId >= switchCount
+                    || !isEnabled()) {
+                return false;
+            }
+            toggle(virtualViewId);
+            sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+            return true;
+        }
+    }
+
+    /**
+     * The callback to invoked when the state of a switch in a grid changed.
+     */
+    public interface OnSwitchChangeListener {
+        /**
+         * Called when a switch of the grid has settled in a new state.
+         * @param grid The grid whose switch has changed.
+         * @param index The index of the switch.
+         * @param checked The new checked state of the switch.
+         */
+        void onSwitchChanged(CupertinoSwitchGrid grid, int index, boolean checked);
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.util.SparseBooleanArray;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+
+/**
+ * A group of {@link CupertinoSwitch}es, not a view, so that the switches stay in whatever layout
+ * they are in, e.g. a ConstraintLayout or the rows of a RecyclerView.
+ * The states of the switches can be applied in bulk, and the changes are delivered as a single
+ * change set once all the switches have settled, instead of one callback per switch.
+ * The switches are identified by their view ids, the ones without an id are not tracked.
+ * The group holds on to its switches until they are removed, a switch belongs to one group at
+ * most. It must be used from the main thread.
+ */
+public class CupertinoSwitchGroup {
+    /** The switches of this group, in the order they were added. */
+    private final ArrayList<CupertinoSwitch> switches = new ArrayList<>();
+
+    /** The switches whose transition started by {@link #setStates} has not settled yet. */
+    private final ArrayList<CupertinoSwitch> pendingSwitches = new ArrayList<>();
+
+    /** The changes not delivered yet. */
+    private SparseBooleanArray changes = new SparseBooleanArray();
+
+    /** True while {@link #setStates} walks through the switches. */
+    private boolean applyingStates;
+
+    /** {@link OnGroupStateChangeListener} */
+    private OnGroupStateChangeListener onGroupStateChangeListener;
+
+    /**
+     * Add a switch to this group, it is removed from its previous group if any.
+     * @param cupertinoSwitch The switch to add.
+     */
+    public void addSwitch(@NonNull CupertinoSwitch cupertinoSwitch) {
+        CupertinoSwitchGroup previousGroup = cupertinoSwitch.getGroup();
+        if (previousGroup == this) {
+            return;
+        }
+        if (previousGroup != null) {
+            previousGroup.removeSwitch(cupertinoSwitch);
+        }
+        switches.add(cupertinoSwitch);
+        cupertinoSwitch.setGroup(this);
+    }
+
+    /**
+     * Remove a switch from this group, e.g. when a recycled row is bound to another item.
+     * A transition of the switch still running is no longer waited for.
+     * @param cupertinoSwitch The switch to remove.
+     */
+    public void removeSwitch(@NonNull CupertinoSwitch cupertinoSwitch) {
+        if (cupertinoSwitch.getGroup() != this) {
+            return;
+        }
+        switches.remove(cupertinoSwitch);
+        cupertinoSwitch.setGroup(null);
+        if (pendingSwitches.remove(cupertinoSwitch) && !applyingStates
+                && pendingSwitches.isEmpty()) {
+            deliverChanges();
+        }
+    }
+
+    /**
+     * @return The number of switches in this group.
+     */
+    public int getSwitchCount() {
+        return switches.size();
+    }
+
+    /**
+     * Apply the given states to the switches of this group in one pass, the switches which are not
+     * in the given states are left as they are.
+     * A single {@link OnGroupStateChangeListener#onStatesChanged} call is made once all the
+     * switches have settled. The {@link CupertinoSwitch.OnStateChangeListener}s of the changed
+     * switches are still notified, whether the switches are animated or not.
+     * @param states The new checked states, keyed by the switch view ids.
+     * @param animate true to animate the switches, false to move them immediately.
+     */
+    public void setStates(@NonNull SparseBooleanArray states, boolean animate) {
+        applyingStates = true;
+        for (int i = 0; i < switches.size(); i++) {
+            CupertinoSwitch cupertinoSwitch = switches.get(i);
+            int index = states.indexOfKey(cupertinoSwitch.getId());
+            if (index >= 0) {
+                applyState(cupertinoSwitch, states.valueAt(index), animate);
+            }
+        }
+        applyingStates = false;
+
+        if (pendingSwitches.isEmpty()) {
+            deliverChanges();
+        }
+    }
+
+    private void applyState(CupertinoSwitch cupertinoSwitch, boolean checked, boolean animate) {
+        boolean wasChecked = cupertinoSwitch.isChecked();
+        cupertinoSwitch.applyState(checked, animate);
+        if (cupertinoSwitch.isTransitionRunning()) {
+            if (!pendingSwitches.contains(cupertinoSwitch)) {
+                pendingSwitches.add(cupertinoSwitch);
+            }
+            return;
+        }
+
+        if (wasChecked != checked) {
+            changes.put(cupertinoSwitch.getId(), checked);
+        }
+    }
+
+    /**
+     * Called by a switch of this group when its transition has settled.
+     * @param cupertinoSwitch The switch which has settled.
+     * @param changed True if its checked state has changed.
+     */
+    void onSwitchSettled(CupertinoSwitch cupertinoSwitch, boolean changed) {
+        if (changed && cupertinoSwitch.getId() != View.NO_ID) {
+            changes.put(cupertinoSwitch.getId(), cupertinoSwitch.isChecked());
+        }
+        pendingSwitches.remove(cupertinoSwitch);
+
+        if (!applyingStates && pendingSwitches.isEmpty()) {
+            deliverChanges();
+        }
+    }
+
+    private void deliverChanges() {
+        if (changes.size() == 0) {
+            return;
+        }
+
+        SparseBooleanArray delivered = changes;
+        changes = new SparseBooleanArray();
+        if (onGroupStateChangeListener != null) {
+            onGroupStateChangeListener.onStatesChanged(this, delivered);
+        }
+    }
+
+    /**
+     * Register a callback to be invoked with the coalesced state changes of the group.
+     * @param onGroupStateChangeListener the callback to call on state changes
+     */
+    public void setOnGroupStateChangeListener(
+            @Nullable OnGroupStateChangeListener onGroupStateChangeListener) {
+        this.onGroupStateChangeListener = onGroupStateChangeListener;
+    }
+
+    /**
+     * The callback to invoked when the states of the switches in a group changed.
+     */
+    public interface OnGroupStateChangeListener {
+        /**
+         * Called once the switches of the group have settled.
+         * @param group The group whose switches have changed.
+         * @param changes The new checked states of the changed switches, keyed by their view ids.
+         */
+        void onStatesChanged(CupertinoSwitchGroup group, SparseBooleanArray changes);
+    }
+}
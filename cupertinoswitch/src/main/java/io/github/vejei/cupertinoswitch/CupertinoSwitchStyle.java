@@ -0,0 +1,323 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.SparseArray;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.Dimension;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+
+import java.util.WeakHashMap;
+
+/**
+ * The resolved, immutable appearance of a {@link CupertinoSwitch}.
+ * A resolved style is cached per theme and style resource, and shared by every switch resolving
+ * to the same values, inflated ones included. A cached style is only handed out again while the
+ * attributes still resolve to its values, so that a theme changed in place, e.g. by
+ * {@link Resources.Theme#applyStyle(int, boolean)}, gets a new style. The switches created with
+ * {@link CupertinoSwitch#CupertinoSwitch(Context, CupertinoSwitchStyle)} skip the attribute
+ * resolution entirely.
+ */
+public final class CupertinoSwitchStyle {
+    /** The default width of switch, in dp. */
+    private static final @Dimension(unit = Dimension.DP) int DEFAULT_SWITCH_WIDTH = 48;
+
+    /** The default switch animation duration, in milliseconds. */
+    private static final int DEFAULT_SWITCH_DURATION = 250;
+
+    /** The default slider shadow radius, in dp */
+    private static final @Dimension(unit = Dimension.DP) int DEFAULT_SLIDER_SHADOW_RADIUS = 4;
+
+    /** The default slider shadow color. */
+    private static final @ColorInt int DEFAULT_SLIDER_SHADOW_COLOR = 0xffdddddd;
+
+    /**
+     * The offset between the slider and the track, used to calculate the radius of the slider,
+     * if not specified.
+     */
+    private static final @Dimension(unit = Dimension.DP) int SLIDER_OFFSET = 2;
+
+    /** The minimum radius of the slider. */
+    private static final @Dimension(unit = Dimension.DP) int MIN_SLIDER_RADIUS = 4;
+
+    /** The resolved styles, per theme and per style resource. */
+    private static final WeakHashMap<Resources.Theme, SparseArray<CupertinoSwitchStyle>> cache =
+            new WeakHashMap<>();
+
+    /**
+     * The style the attributes are resolved into, to be compared with the cached one, it becomes
+     * the cached style if they differ. Never handed out while it is the scratch.
+     */
+    private static CupertinoSwitchStyle scratch;
+
+    // Only written while resolved as the scratch, the style is immutable once handed out.
+    private int switchWidth;
+    private int switchHeight;
+    private int switchDuration;
+    private int switchAnimation;
+    private int trackColorBlend;
+    private int trackOnColor;
+    private int trackOffColor;
+    private int sliderColor;
+    private int sliderRadius;
+    private int minSliderRadius;
+    private boolean sliderShadowEnabled;
+    private int sliderShadowColor;
+    private int sliderShadowRadius;
+
+    /** The slider paint shared by the switches, it must not be modified. */
+    private final Paint sliderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    /**
+     * Resolve the style from the given attributes.
+     * @param context The context the style is resolved in.
+     * @param typedArray The attributes obtained for {@link R.styleable#CupertinoSwitch}.
+     */
+    CupertinoSwitchStyle(@NonNull Context context, @NonNull TypedArray typedArray) {
+        resolve(context, typedArray);
+    }
+
+    private void resolve(@NonNull Context context, @NonNull TypedArray typedArray) {
+        int defaultSwitchWidthPixels = (int) ViewUtils.dpToPx(context, DEFAULT_SWITCH_WIDTH);
+        int sliderOffset = (int) ViewUtils.dpToPx(context, SLIDER_OFFSET);
+        int defaultSliderShadowRadiusPixels = (int) ViewUtils.dpToPx(context,
+                DEFAULT_SLIDER_SHADOW_RADIUS);
+        minSliderRadius = (int) ViewUtils.dpToPx(context, MIN_SLIDER_RADIUS);
+
+        switchWidth = typedArray.getDimensionPixelSize(R.styleable.CupertinoSwitch_switchWidth,
+                defaultSwitchWidthPixels);
+
+        int height = typedArray.getDimensionPixelSize(R.styleable.CupertinoSwitch_switchHeight,
+                switchWidth / 2);
+        switchHeight = Math.max(0, Math.min(height, switchWidth));
+        int trackCornerRadius = switchHeight / 2;
+
+        switchDuration = typedArray.getInt(R.styleable.CupertinoSwitch_switchDuration,
+                DEFAULT_SWITCH_DURATION);
+        switchAnimation = typedArray.getInt(R.styleable.CupertinoSwitch_switchAnimation,
+                CupertinoSwitch.SWITCH_ANIMATION_TIMED);
+        trackColorBlend = typedArray.getInt(R.styleable.CupertinoSwitch_trackColorBlend,
+                CupertinoSwitch.TRACK_COLOR_BLEND_LINEAR);
+        sliderColor = typedArray.getColor(R.styleable.CupertinoSwitch_sliderColor, Color.WHITE);
+
+        int radius = typedArray.getDimensionPixelSize(R.styleable.CupertinoSwitch_sliderRadius,
+                trackCornerRadius - sliderOffset);
+        // Constrain the slider radius to [MIN_SLIDER_RADIUS, trackCornerRadius].
+        sliderRadius = radius < minSliderRadius ? minSliderRadius
+                : Math.min(radius, trackCornerRadius);
+
+        sliderShadowEnabled = typedArray.getBoolean(R.styleable.CupertinoSwitch_sliderShadowEnabled,
+                true);
+        sliderShadowColor = typedArray.getColor(R.styleable.CupertinoSwitch_sliderShadowColor,
+                DEFAULT_SLIDER_SHADOW_COLOR);
+        sliderShadowRadius = typedArray.getDimensionPixelSize(
+                R.styleable.CupertinoSwitch_sliderShadowRadius, defaultSliderShadowRadiusPixels);
+
+        trackOnColor = typedArray.getColor(R.styleable.CupertinoSwitch_trackOnColor, Color.GRAY);
+        trackOffColor = typedArray.getColor(R.styleable.CupertinoSwitch_trackOffColor, Color.GRAY);
+
+        sliderPaint.setStyle(Paint.Style.FILL);
+        sliderPaint.setColor(sliderColor);
+    }
+
+    /**
+     * @return True if the given style has the same values as this one, false otherwise or if
+     * null.
+     */
+    private boolean hasSameValues(@Nullable CupertinoSwitchStyle style) {
+        return style != null
+                && switchWidth == style.switchWidth
+                && switchHeight == style.switchHeight
+                && switchDuration == style.switchDuration
+                && switchAnimation == style.switchAnimation
+                && trackColorBlend == style.trackColorBlend
+                && trackOnColor == style.trackOnColor
+                && trackOffColor == style.trackOffColor
+                && sliderColor == style.sliderColor
+                && sliderRadius == style.sliderRadius
+                && minSliderRadius == style.minSliderRadius
+                && sliderShadowEnabled == style.sliderShadowEnabled
+                && sliderShadowColor == style.sliderShadowColor
+                && sliderShadowRadius == style.sliderShadowRadius;
+    }
+
+    /**
+     * Get the style resolved from the {@link R.attr#cupertinoSwitchStyle} theme attribute of the
+     * given context, shared while the theme resolves to the same values.
+     * @param context The context whose theme the style is resolved in.
+     * @return The shared style.
+     */
+    @NonNull
+    public static CupertinoSwitchStyle obtain(@NonNull Context context) {
+        return obtain(context, 0);
+    }
+
+    /**
+     * Get the style resolved from the given style resource, shared while the theme and the style
+     * resource resolve to the same values.
+     * @param context The context whose theme the style is resolved in.
+     * @param styleRes The style resource, 0 to use the {@link R.attr#cupertinoSwitchStyle} theme
+     *                 attribute.
+     * @return The shared style.
+     */
+    @NonNull
+    public static CupertinoSwitchStyle obtain(@NonNull Context context, @StyleRes int styleRes) {
+        TypedArray typedArray = styleRes != 0
+                ? context.obtainStyledAttributes(null, R.styleable.CupertinoSwitch, 0, styleRes)
+                : context.obtainStyledAttributes(null, R.styleable.CupertinoSwitch,
+                        R.attr.cupertinoSwitchStyle, 0);
+        CupertinoSwitchStyle style = obtain(context, styleRes, typedArray);
+        typedArray.recycle();
+        return style;
+    }
+
+    /**
+     * Get the cached style with the values of the given attributes, the cached one is replaced
+     * if the values have changed. Nothing is allocated when the cached style matches.
+     * @param context The context whose theme the style is cached for.
+     * @param styleRes The style resource the attributes are resolved from, 0 if none.
+     * @param typedArray The attributes obtained for {@link R.styleable#CupertinoSwitch}.
+     * @return The shared style.
+     */
+    @NonNull
+    static CupertinoSwitchStyle obtain(@NonNull Context context, @StyleRes int styleRes,
+                                       @NonNull TypedArray typedArray) {
+        Resources.Theme theme = context.getTheme();
+        synchronized (cache) {
+            SparseArray<CupertinoSwitchStyle> styles = cache.get(theme);
+            if (styles == null) {
+                styles = new SparseArray<>();
+                cache.put(theme, styles);
+            }
+
+            if (scratch == null) {
+                scratch = new CupertinoSwitchStyle(context, typedArray);
+            } else {
+                scratch.resolve(context, typedArray);
+            }
+            CupertinoSwitchStyle style = styles.get(styleRes);
+            if (!scratch.hasSameValues(style)) {
+                // Resolved for the first time, or the theme or the attributes have changed.
+                style = scratch;
+                scratch = null;
+                styles.put(styleRes, style);
+            }
+            return style;
+        }
+    }
+
+    /**
+     * @return The switch width in pixels.
+     */
+    @Dimension
+    public int getSwitchWidth() {
+        return switchWidth;
+    }
+
+    /**
+     * @return The switch height in pixels.
+     */
+    @Dimension
+    public int getSwitchHeight() {
+        return switchHeight;
+    }
+
+    /**
+     * @return The switch animation duration in milliseconds.
+     */
+    public int getSwitchDuration() {
+        return switchDuration;
+    }
+
+    /**
+     * @return How the slider moves to a new state.
+     */
+    @CupertinoSwitch.SwitchAnimation
+    public int getSwitchAnimation() {
+        return switchAnimation;
+    }
+
+    /**
+     * @return How the track color is blended during a transition.
+     */
+    @CupertinoSwitch.TrackColorBlend
+    public int getTrackColorBlend() {
+        return trackColorBlend;
+    }
+
+    /**
+     * @return The track color used at switch on.
+     */
+    @ColorInt
+    public int getTrackOnColor() {
+        return trackOnColor;
+    }
+
+    /**
+     * @return The track color used at switch off.
+     */
+    @ColorInt
+    public int getTrackOffColor() {
+        return trackOffColor;
+    }
+
+    /**
+     * @return The slider color.
+     */
+    @ColorInt
+    public int getSliderColor() {
+        return sliderColor;
+    }
+
+    /**
+     * @return The slider radius pixels.
+     */
+    @Dimension
+    public int getSliderRadius() {
+        return sliderRadius;
+    }
+
+    /**
+     * @return True if the slider shadow is enabled, false otherwise.
+     */
+    public boolean isSliderShadowEnabled() {
+        return sliderShadowEnabled;
+    }
+
+    /**
+     * @return The slider shadow color.
+     */
+    @ColorInt
+    public int getSliderShadowColor() {
+        return sliderShadowColor;
+    }
+
+    /**
+     * @return The slider shadow radius pixel size.
+     */
+    @Dimension
+    public int getSliderShadowRadius() {
+        return sliderShadowRadius;
+    }
+
+    /**
+     * @return The minimum slider radius pixels.
+     */
+    @Dimension
+    int getMinSliderRadius() {
+        return minSliderRadius;
+    }
+
+    /**
+     * @return The shared slider paint, it must not be modified.
+     */
+    Paint getSliderPaint() {
+        return sliderPaint;
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.view.Choreographer;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Schedules the animation frames of the switch transitions, backed by the {@link Choreographer}
+ * of the calling thread. It is the seam the JVM tests replace with a fake frame clock, so that
+ * transitions run deterministically without a display.
+ */
+abstract class FrameScheduler {
+    private static final FrameScheduler CHOREOGRAPHER = new FrameScheduler() {
+        @Override
+        void postFrameCallback(Choreographer.FrameCallback callback) {
+            Choreographer.getInstance().postFrameCallback(callback);
+        }
+
+        @Override
+        void removeFrameCallback(Choreographer.FrameCallback callback) {
+            Choreographer.getInstance().removeFrameCallback(callback);
+        }
+    };
+
+    private static FrameScheduler instance = CHOREOGRAPHER;
+
+    static FrameScheduler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Replace the frame scheduler of all the switches.
+     * @param scheduler The scheduler to use, null to restore the {@link Choreographer}.
+     */
+    @VisibleForTesting
+    static void setInstance(@Nullable FrameScheduler scheduler) {
+        instance = scheduler != null ? scheduler : CHOREOGRAPHER;
+    }
+
+    /**
+     * Run the given callback once on the next frame.
+     * @param callback The callback to run.
+     */
+    abstract void postFrameCallback(Choreographer.FrameCallback callback);
+
+    /**
+     * Remove the given callback if it is posted.
+     * @param callback The callback to remove.
+     */
+    abstract void removeFrameCallback(Choreographer.FrameCallback callback);
+
+    /**
+     * @return The current time, in the time base of the frame times, the {@link System#nanoTime()}
+     * one unless replaced.
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,180 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.provider.Settings;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+
+/**
+ * The process-wide observer of the system settings the switch transitions adapt to: the animator
+ * duration scale, 0 when animations are turned off for reduced motion, and the battery saver.
+ * A single content observer and broadcast receiver serve every attached switch, they are only
+ * registered while at least one listener is. It must be used from the main thread.
+ */
+final class MotionSettings {
+    /** The transitions are shortened by the battery saver. */
+    private static final float POWER_SAVE_DURATION_SCALE = 0.5f;
+
+    private static final ArrayList<Listener> listeners = new ArrayList<>();
+
+    private static Context appContext;
+    private static ContentObserver durationScaleObserver;
+    private static BroadcastReceiver powerSaveReceiver;
+
+    private static float durationScale = 1f;
+    private static boolean powerSaveMode;
+
+    private MotionSettings() {
+    }
+
+    /**
+     * @return The animator duration scale of the system, 0 if the animations are off.
+     */
+    static float getDurationScale() {
+        return durationScale;
+    }
+
+    /**
+     * @return True if the battery saver is on, false otherwise.
+     */
+    static boolean isPowerSaveMode() {
+        return powerSaveMode;
+    }
+
+    /**
+     * Scale a transition duration by the current settings.
+     * @param duration The duration of a full transition, in milliseconds.
+     * @return The duration following the system animator duration scale, 0 if the animations are
+     * off, and shortened while the battery saver is on.
+     */
+    static long scaleDuration(long duration) {
+        float scale = powerSaveMode ? durationScale * POWER_SAVE_DURATION_SCALE : durationScale;
+        return (long) (duration * scale);
+    }
+
+    /**
+     * Start observing the settings for the given listener, the settings are up to date once it
+     * returns.
+     * @param context Any context, its application context is used to observe the settings.
+     * @param listener The listener to notify when the settings change.
+     */
+    static void register(Context context, Listener listener) {
+        if (listeners.contains(listener)) {
+            return;
+        }
+        listeners.add(listener);
+        if (listeners.size() > 1) {
+            return;
+        }
+
+        appContext = context.getApplicationContext();
+        Handler handler = new Handler(Looper.getMainLooper());
+        durationScaleObserver = new ContentObserver(handler) {
+            @Override
+            public void onChange(boolean selfChange) {
+                update();
+            }
+        };
+        Uri uri = Settings.Global.getUriFor(Settings.Global.ANIMATOR_DURATION_SCALE);
+        appContext.getContentResolver().registerContentObserver(uri, false,
+                durationScaleObserver);
+
+        powerSaveReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                update();
+            }
+        };
+        appContext.registerReceiver(powerSaveReceiver,
+                new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED), null, handler);
+
+        // Nothing was observed while there were no listeners.
+        read(appContext);
+    }
+
+    /**
+     * Stop observing the settings for the given listener.
+     * @param listener The listener to remove.
+     */
+    static void unregister(Listener listener) {
+        if (!listeners.remove(listener) || !listeners.isEmpty()) {
+            return;
+        }
+
+        appContext.getContentResolver().unregisterContentObserver(durationScaleObserver);
+        appContext.unregisterReceiver(powerSaveReceiver);
+        durationScaleObserver = null;
+        powerSaveReceiver = null;
+        appContext = null;
+    }
+
+    /**
+     * Read the settings again, unless a listener keeps them up to date. For callers that only
+     * need the current values once in a while, e.g. to draw, without observing the changes.
+     * @param context Any context, used to read the settings.
+     */
+    static void refresh(Context context) {
+        if (listeners.isEmpty()) {
+            read(context);
+        }
+    }
+
+    /**
+     * Forget the listeners and the settings read, the JVM tests share the process-wide state.
+     */
+    @VisibleForTesting
+    static void reset() {
+        listeners.clear();
+        appContext = null;
+        durationScaleObserver = null;
+        powerSaveReceiver = null;
+        durationScale = 1f;
+        powerSaveMode = false;
+    }
+
+    private static void update() {
+        if (appContext == null || !read(appContext)) {
+            return;
+        }
+        // A listener may unregister itself.
+        for (int i = listeners.size() - 1; i >= 0; i--) {
+            listeners.get(i).onMotionSettingsChanged();
+        }
+    }
+
+    /**
+     * @return True if a setting has changed.
+     */
+    private static boolean read(Context context) {
+        float scale = Settings.Global.getFloat(context.getContentResolver(),
+                Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        PowerManager powerManager = (PowerManager) context.getSystemService(
+                Context.POWER_SERVICE);
+        boolean powerSave = powerManager != null && powerManager.isPowerSaveMode();
+
+        boolean changed = scale != durationScale || powerSave != powerSaveMode;
+        durationScale = scale;
+        powerSaveMode = powerSave;
+        return changed;
+    }
+
+    /**
+     * The callback to invoked when the motion settings changed.
+     */
+    interface Listener {
+        /**
+         * Called on the main thread when a setting has changed.
+         */
+        void onMotionSettingsChanged();
+    }
+}
@@ -0,0 +1,160 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.LruCache;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.Dimension;
+import androidx.annotation.Nullable;
+
+/**
+ * A process-wide cache of pre-rendered switches at rest.
+ * Most switches sit fully on or fully off, the track and the slider with its shadow are rasterized
+ * once per appearance and resting side, so that an idle redraw is a single bitmap draw shared by
+ * every switch looking the same.
+ */
+final class RestingSwitchCache {
+    /** The maximum total size of the cached bitmaps, in bytes. */
+    private static final int MAX_CACHE_SIZE = 2 * 1024 * 1024;
+
+    /** The maximum size of a single bitmap, larger switches are always drawn live. */
+    private static final int MAX_BITMAP_SIZE = MAX_CACHE_SIZE / 8;
+
+    private static final LruCache<Key, Bitmap> cache = new LruCache<Key, Bitmap>(MAX_CACHE_SIZE) {
+        @Override
+        protected int sizeOf(Key key, Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+
+    private RestingSwitchCache() {
+    }
+
+    /**
+     * Get the distance from the track edges to the bitmap edges, room for the slider shadow.
+     * @param switchHeight The track height pixel size.
+     * @param sliderRadius The slider radius pixel size.
+     * @param shadowRadius The slider shadow radius pixel size, negative if there is no shadow.
+     * @return The outset of the bitmap, in pixels.
+     */
+    static int getOutset(@Dimension int switchHeight, @Dimension int sliderRadius,
+                         int shadowRadius) {
+        int extent = shadowRadius >= 0 ? SliderShadowCache.getExtent(sliderRadius, shadowRadius)
+                : sliderRadius + 1;
+        return Math.max(0, (int) Math.ceil(extent - switchHeight / 2f));
+    }
+
+    /**
+     * Get the bitmap of a switch at rest, the track starts at the outset of the bitmap.
+     * @param switchWidth The track width pixel size.
+     * @param switchHeight The track height pixel size.
+     * @param trackColor A color value in the form 0xAARRGGBB.
+     * @param sliderRight True if the slider rests on the right side of the track.
+     * @param sliderRadius The slider radius pixel size.
+     * @param sliderColor A color value in the form 0xAARRGGBB.
+     * @param shadowRadius The slider shadow radius pixel size, negative if there is no shadow.
+     * @param shadowColor A color value in the form 0xAARRGGBB.
+     * @return The cached bitmap, or null if the switch is too large to be cached.
+     */
+    @Nullable
+    static Bitmap get(@Dimension int switchWidth, @Dimension int switchHeight,
+                      @ColorInt int trackColor, boolean sliderRight, @Dimension int sliderRadius,
+                      @ColorInt int sliderColor, int shadowRadius, @ColorInt int shadowColor) {
+        int outset = getOutset(switchHeight, sliderRadius, shadowRadius);
+        int width = switchWidth + outset * 2;
+        int height = switchHeight + outset * 2;
+        if (switchWidth <= 0 || switchHeight <= 0 || width * height * 4 > MAX_BITMAP_SIZE) {
+            return null;
+        }
+
+        Key key = new Key(switchWidth, switchHeight, trackColor, sliderRight, sliderRadius,
+                sliderColor, shadowRadius, shadowColor);
+        Bitmap bitmap = cache.get(key);
+        if (bitmap == null) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            // The sizes are already in pixels, the bitmap must never be scaled by the canvas.
+            bitmap.setDensity(Bitmap.DENSITY_NONE);
+            render(new Canvas(bitmap), outset, key);
+            cache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    private static void render(Canvas canvas, int outset, Key key) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(key.trackColor);
+        float cornerRadius = key.switchHeight / 2;
+        canvas.drawRoundRect(outset, outset, outset + key.switchWidth, outset + key.switchHeight,
+                cornerRadius, cornerRadius, paint);
+
+        float sliderCenterX = key.sliderRight ? outset + key.switchWidth - key.switchHeight / 2f
+                : outset + key.switchHeight / 2f;
+        float sliderCenterY = outset + key.switchHeight / 2f;
+        Bitmap sliderBitmap = key.shadowRadius >= 0 ? SliderShadowCache.get(key.sliderRadius,
+                key.shadowRadius, key.sliderColor, key.shadowColor) : null;
+        if (sliderBitmap != null) {
+            int extent = SliderShadowCache.getExtent(key.sliderRadius, key.shadowRadius);
+            // Snapped like the live slider, so that the switch does not shift when it comes to
+            // rest.
+            canvas.drawBitmap(sliderBitmap, Math.round(sliderCenterX - extent),
+                    Math.round(sliderCenterY - extent), new Paint(Paint.FILTER_BITMAP_FLAG));
+        } else {
+            paint.setColor(key.sliderColor);
+            canvas.drawCircle(sliderCenterX, sliderCenterY, key.sliderRadius, paint);
+        }
+    }
+
+    private static final class Key {
+        private final int switchWidth;
+        private final int switchHeight;
+        private final int trackColor;
+        private final boolean sliderRight;
+        private final int sliderRadius;
+        private final int sliderColor;
+        private final int shadowRadius;
+        private final int shadowColor;
+
+        Key(int switchWidth, int switchHeight, int trackColor, boolean sliderRight,
+            int sliderRadius, int sliderColor, int shadowRadius, int shadowColor) {
+            this.switchWidth = switchWidth;
+            this.switchHeight = switchHeight;
+            this.trackColor = trackColor;
+            this.sliderRight = sliderRight;
+            this.sliderRadius = sliderRadius;
+            this.sliderColor = sliderColor;
+            this.shadowRadius = shadowRadius;
+            this.shadowColor = shadowColor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return switchWidth == key.switchWidth && switchHeight == key.switchHeight
+                    && trackColor == key.trackColor && sliderRight == key.sliderRight
+                    && sliderRadius == key.sliderRadius && sliderColor == key.sliderColor
+                    && shadowRadius == key.shadowRadius && shadowColor == key.shadowColor;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = switchWidth;
+            result = 31 * result + switchHeight;
+            result = 31 * result + trackColor;
+            result = 31 * result + (sliderRight ? 1 : 0);
+            result = 31 * result + sliderRadius;
+            result = 31 * result + sliderColor;
+            result = 31 * result + shadowRadius;
+            result = 31 * result + shadowColor;
+            return result;
+        }
+    }
+}
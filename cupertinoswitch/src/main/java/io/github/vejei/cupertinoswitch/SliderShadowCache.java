@@ -0,0 +1,118 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.LruCache;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.Dimension;
+import androidx.annotation.Nullable;
+
+/**
+ * A process-wide cache of pre-rendered sliders.
+ * The slider and its blurred shadow are rasterized once per appearance and the bitmap is shared by
+ * every switch drawing the same slider, so the blur is never computed while drawing.
+ */
+final class SliderShadowCache {
+    /** The maximum total size of the cached bitmaps, in bytes. */
+    private static final int MAX_CACHE_SIZE = 2 * 1024 * 1024;
+
+    private static final LruCache<Key, Bitmap> cache = new LruCache<Key, Bitmap>(MAX_CACHE_SIZE) {
+        @Override
+        protected int sizeOf(Key key, Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+
+    private SliderShadowCache() {
+    }
+
+    /**
+     * Get the distance from the center of a slider bitmap to its edges.
+     * @param sliderRadius The slider radius pixel size.
+     * @param shadowRadius The slider shadow radius pixel size.
+     * @return The half size of the bitmap, in pixels.
+     */
+    static int getExtent(@Dimension int sliderRadius, @Dimension int shadowRadius) {
+        // One extra pixel keeps the anti-aliased edge of the blur inside the bitmap.
+        return sliderRadius + shadowRadius + 1;
+    }
+
+    /**
+     * Get the bitmap of a slider drawn with its shadow, the slider center is the bitmap center.
+     * @param sliderRadius The slider radius pixel size.
+     * @param shadowRadius The slider shadow radius pixel size.
+     * @param sliderColor A color value in the form 0xAARRGGBB.
+     * @param shadowColor A color value in the form 0xAARRGGBB.
+     * @return The cached bitmap, or null if there is nothing to draw.
+     */
+    @Nullable
+    static Bitmap get(@Dimension int sliderRadius, @Dimension int shadowRadius,
+                      @ColorInt int sliderColor, @ColorInt int shadowColor) {
+        if (sliderRadius <= 0) {
+            return null;
+        }
+
+        Key key = new Key(sliderRadius, shadowRadius, sliderColor, shadowColor);
+        Bitmap bitmap = cache.get(key);
+        if (bitmap == null) {
+            bitmap = render(sliderRadius, shadowRadius, sliderColor, shadowColor);
+            cache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    private static Bitmap render(int sliderRadius, int shadowRadius, int sliderColor,
+                                 int shadowColor) {
+        int extent = getExtent(sliderRadius, shadowRadius);
+        Bitmap bitmap = Bitmap.createBitmap(extent * 2, extent * 2, Bitmap.Config.ARGB_8888);
+        // The sizes are already in pixels, the bitmap must never be scaled by the target canvas.
+        bitmap.setDensity(Bitmap.DENSITY_NONE);
+
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(sliderColor);
+        if (shadowRadius > 0) {
+            paint.setShadowLayer(shadowRadius, 0, 0, shadowColor);
+        }
+        new Canvas(bitmap).drawCircle(extent, extent, sliderRadius, paint);
+        return bitmap;
+    }
+
+    private static final class Key {
+        private final int sliderRadius;
+        private final int shadowRadius;
+        private final int sliderColor;
+        private final int shadowColor;
+
+        Key(int sliderRadius, int shadowRadius, int sliderColor, int shadowColor) {
+            this.sliderRadius = sliderRadius;
+            this.shadowRadius = shadowRadius;
+            this.sliderColor = sliderColor;
+            this.shadowColor = shadowColor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return sliderRadius == key.sliderRadius && shadowRadius == key.shadowRadius
+                    && sliderColor == key.sliderColor && shadowColor == key.shadowColor;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = sliderRadius;
+            result = 31 * result + shadowRadius;
+            result = 31 * result + sliderColor;
+            result = 31 * result + shadowColor;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.graphics.Rect;
+import android.view.Choreographer;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * An opt-in coordinator driving the transitions of all switches from a single frame callback.
+ * By default every switch registers its own frame callback, when enabled all the in-flight
+ * transitions are advanced together, so their invalidations land in the same traversal.
+ * The coordinator must be used from the main thread.
+ */
+public final class SwitchAnimationCoordinator {
+    private static final ArrayList<SwitchAnimator> animators = new ArrayList<>();
+    private static final Rect visibleRect = new Rect();
+
+    private static final Choreographer.FrameCallback frameCallback =
+            new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    SwitchAnimationCoordinator.doFrame(frameTimeNanos);
+                }
+            };
+
+    private static boolean enabled;
+    private static int maxConcurrentAnimations;
+    private static boolean frameCallbackPosted;
+
+    /**
+     * The number of driven animators running and not snapping, kept up to date as they start,
+     * snap and stop, so that starting hundreds of transitions at once stays linear.
+     */
+    private static int animatingCount;
+
+    private SwitchAnimationCoordinator() {
+    }
+
+    /**
+     * @return True if the coordinator drives the switch transitions, false otherwise.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set whether the switch transitions started from now on are driven by the coordinator.
+     * @param enabled True to drive all transitions from a single frame callback, false to let
+     *                every switch drive its own transition.
+     */
+    public static void setEnabled(boolean enabled) {
+        SwitchAnimationCoordinator.enabled = enabled;
+    }
+
+    /**
+     * @return The maximum number of concurrent transitions, 0 if not limited.
+     */
+    public static int getMaxConcurrentAnimations() {
+        return maxConcurrentAnimations;
+    }
+
+    /**
+     * Limit the number of transitions animated at the same time, the transitions started over the
+     * limit, and the ones of switches not visible on screen, jump to their end state on the next
+     * frame instead.
+     * @param maxConcurrentAnimations The maximum number of concurrent transitions, 0 for no limit.
+     */
+    public static void setMaxConcurrentAnimations(int maxConcurrentAnimations) {
+        SwitchAnimationCoordinator.maxConcurrentAnimations = Math.max(0, maxConcurrentAnimations);
+    }
+
+    /**
+     * Start driving the given animator.
+     * @param animator The animator to drive, it must be running.
+     */
+    static void add(SwitchAnimator animator) {
+        if (!animator.isCoordinated()) {
+            animator.setCoordinated(true);
+            animators.add(animator);
+        }
+        if (!animator.isCounted()) {
+            animator.setCounted(true);
+            animatingCount++;
+        }
+
+        if ((maxConcurrentAnimations > 0 && animatingCount > maxConcurrentAnimations)
+                || !isVisibleOnScreen(animator.getView())) {
+            animator.snapToEnd();
+        }
+
+        if (!frameCallbackPosted) {
+            frameCallbackPosted = true;
+            FrameScheduler.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    private static void doFrame(long frameTimeNanos) {
+        frameCallbackPosted = false;
+
+        // Animators started by the callbacks of this frame get their first frame on the next one.
+        int size = animators.size();
+        for (int i = 0; i < size; i++) {
+            SwitchAnimator animator = animators.get(i);
+            if (animator.isRunning()) {
+                animator.doFrame(frameTimeNanos);
+            }
+        }
+
+        // Drop the finished and canceled animators, keeping the order of the others.
+        int count = 0;
+        for (int i = 0; i < animators.size(); i++) {
+            SwitchAnimator animator = animators.get(i);
+            if (animator.isRunning()) {
+                animators.set(count++, animator);
+            } else {
+                animator.setCoordinated(false);
+            }
+        }
+        for (int i = animators.size() - 1; i >= count; i--) {
+            animators.remove(i);
+        }
+
+        if (!animators.isEmpty() && !frameCallbackPosted) {
+            frameCallbackPosted = true;
+            FrameScheduler.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    /**
+     * Stop counting the given animator as animating, called when it snaps, finishes or is
+     * canceled.
+     * @param animator The driven animator.
+     */
+    static void onAnimatorStopped(SwitchAnimator animator) {
+        if (animator.isCounted()) {
+            animator.setCounted(false);
+            animatingCount--;
+        }
+    }
+
+    private static boolean isVisibleOnScreen(View view) {
+        return view == null || (view.isShown() && view.getGlobalVisibleRect(visibleRect));
+    }
+}
@@ -0,0 +1,295 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.view.Choreographer;
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A frame-driven animator which advances a single primitive fraction from 0 to 1, or a critically
+ * damped spring towards a target position.
+ * Unlike {@link android.animation.ValueAnimator}, no value is boxed and nothing is allocated when
+ * the animator starts or on each frame, it must be used from a thread with a looper.
+ */
+final class SwitchAnimator implements Choreographer.FrameCallback {
+    /** The same default interpolator as {@link android.animation.ValueAnimator}. */
+    private static final Interpolator DEFAULT_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+    /**
+     * Settles a flung slider, it starts at twice the average speed so that the release velocity
+     * carries over.
+     */
+    private static final Interpolator FLING_INTERPOLATOR = new DecelerateInterpolator();
+
+    /**
+     * The product of the spring frequency and the duration, so that a spring at rest settles a
+     * whole distance within a thousandth of it over the duration: (1 + x) e^-x = 0.001. A
+     * distance d settles when (1 + x) e^-x = 0.001 / d, so the settle time is not proportional to
+     * the distance, it only grows with its logarithm.
+     */
+    private static final float SPRING_SETTLE_PRODUCT = 9.23f;
+
+    /** The spring comes to rest below this distance to its target and this velocity. */
+    private static final float SPRING_REST_DISTANCE = 0.001f;
+    private static final float SPRING_REST_VELOCITY = 0.05f;
+
+    private final View view;
+    private final Callback callback;
+
+    /** The animation duration, in milliseconds. */
+    private long duration;
+    private Interpolator interpolator = DEFAULT_INTERPOLATOR;
+
+    /** The time of the first animation frame, or -1 if the first frame has not come yet. */
+    private long startTimeNanos = -1;
+
+    /** The time of the latest animation frame, in the {@link System#nanoTime()} time base. */
+    private long lastFrameTimeNanos;
+    private boolean running;
+
+    /** True if jumps to the end on the next frame. */
+    private boolean snapping;
+
+    /** True if driven by the {@link SwitchAnimationCoordinator}. */
+    private boolean coordinated;
+
+    /** True if counted by the coordinator as animating, neither snapping nor stopped. */
+    private boolean counted;
+
+    /** True if the running animation is a spring, its position and velocity per second. */
+    private boolean spring;
+    private float springPosition;
+    private float springVelocity;
+    private float springTarget;
+
+    /** The natural angular frequency of the spring, in radians per second. */
+    private float springFrequency;
+
+    /**
+     * @param view The animated view, used to check whether it is visible, may be null.
+     * @param callback The callback to invoked on animation frames.
+     */
+    SwitchAnimator(@Nullable View view, Callback callback) {
+        this.view = view;
+        this.callback = callback;
+    }
+
+    @Nullable
+    View getView() {
+        return view;
+    }
+
+    void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    long getDuration() {
+        return duration;
+    }
+
+    long getLastFrameTimeNanos() {
+        return lastFrameTimeNanos;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Make the running animation jump to its end on the next frame.
+     */
+    void snapToEnd() {
+        snapping = true;
+        if (counted) {
+            SwitchAnimationCoordinator.onAnimatorStopped(this);
+        }
+    }
+
+    boolean isCoordinated() {
+        return coordinated;
+    }
+
+    void setCoordinated(boolean coordinated) {
+        this.coordinated = coordinated;
+    }
+
+    boolean isCounted() {
+        return counted;
+    }
+
+    void setCounted(boolean counted) {
+        this.counted = counted;
+    }
+
+    boolean isSpring() {
+        return spring;
+    }
+
+    /**
+     * Move a slider from the given position to the target with a spring, or with a timed
+     * animation which carries the release velocity over, never slower than a regular one.
+     * The duration of a regular transition must be set first. A running spring is retargeted, a
+     * running timed animation is restarted from fraction 0.
+     * @param spring True to move with a spring, false with a timed animation.
+     * @param position The start position.
+     * @param target The position to settle at.
+     * @param velocity The start velocity, in position units per second.
+     */
+    void startTransition(boolean spring, float position, float target, float velocity) {
+        if (spring) {
+            startSpring(position, velocity, target);
+            return;
+        }
+
+        float distance = Math.abs(target - position);
+        float speed = target > position ? velocity : -velocity;
+        if (speed > 0 && distance > 0) {
+            duration = Math.min(duration, (long) (2000 * distance / speed));
+            interpolator = FLING_INTERPOLATOR;
+        } else {
+            interpolator = DEFAULT_INTERPOLATOR;
+        }
+        start();
+    }
+
+    /**
+     * Start the animation from fraction 0, cancel the running animation first if any.
+     */
+    void start() {
+        cancel();
+        spring = false;
+        schedule();
+    }
+
+    /**
+     * Move a spring from the given position towards the target, the position is reported to
+     * {@link Callback#onAnimationUpdate(float)} instead of a fraction. A running spring is
+     * retargeted from its current position and velocity, so that the motion stays continuous.
+     * The stiffness comes from the duration, whatever the distance: the settle time is set by the
+     * stiffness, a shorter distance settles only slightly sooner.
+     * @param position The start position.
+     * @param velocity The start velocity, in position units per second.
+     * @param target The position to settle at.
+     */
+    void startSpring(float position, float velocity, float target) {
+        if (running && spring) {
+            springTarget = target;
+            return;
+        }
+
+        cancel();
+        spring = true;
+        springPosition = position;
+        springVelocity = velocity;
+        springTarget = target;
+        springFrequency = duration > 0 ? SPRING_SETTLE_PRODUCT * 1000f / duration : 0;
+        schedule();
+    }
+
+    private void schedule() {
+        running = true;
+        snapping = false;
+        startTimeNanos = -1;
+        if (coordinated || SwitchAnimationCoordinator.isEnabled()) {
+            SwitchAnimationCoordinator.add(this);
+        } else {
+            FrameScheduler.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Stop the animation where it is, {@link Callback#onAnimationEnd()} is not called.
+     */
+    void cancel() {
+        if (running) {
+            running = false;
+            // The coordinator drops the canceled animators by itself.
+            if (!coordinated) {
+                FrameScheduler.getInstance().removeFrameCallback(this);
+            } else if (counted) {
+                SwitchAnimationCoordinator.onAnimatorStopped(this);
+            }
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        if (startTimeNanos < 0) {
+            startTimeNanos = frameTimeNanos;
+            lastFrameTimeNanos = frameTimeNanos;
+        }
+        // The spring advances by the interval since the previous frame.
+        long previousFrameTimeNanos = lastFrameTimeNanos;
+        // Set before the callback, which reads it for the transition metrics.
+        lastFrameTimeNanos = frameTimeNanos;
+
+        boolean finished;
+        if (spring) {
+            finished = stepSpring((frameTimeNanos - previousFrameTimeNanos) / 1000000000f);
+            callback.onAnimationUpdate(springPosition);
+        } else {
+            float fraction = snapping || duration <= 0 ? 1f
+                    : Math.min(1f, (frameTimeNanos - startTimeNanos) / (duration * 1000000f));
+            finished = fraction >= 1f;
+            callback.onAnimationUpdate(interpolator.getInterpolation(fraction));
+        }
+
+        if (finished) {
+            running = false;
+            if (counted) {
+                SwitchAnimationCoordinator.onAnimatorStopped(this);
+            }
+            callback.onAnimationEnd();
+        } else if (!coordinated) {
+            FrameScheduler.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Advance the spring with the exact solution of a critically damped oscillator, which stays
+     * stable whatever the frame interval.
+     * @param seconds The time elapsed since the previous frame.
+     * @return True if the spring has come to rest at its target.
+     */
+    private boolean stepSpring(float seconds) {
+        if (!snapping && springFrequency > 0) {
+            float displacement = springPosition - springTarget;
+            float c2 = springVelocity + springFrequency * displacement;
+            float decay = (float) Math.exp(-springFrequency * seconds);
+            float offset = displacement + c2 * seconds;
+            springPosition = springTarget + offset * decay;
+            springVelocity = (c2 - springFrequency * offset) * decay;
+
+            if (Math.abs(springPosition - springTarget) >= SPRING_REST_DISTANCE
+                    || Math.abs(springVelocity) >= SPRING_REST_VELOCITY) {
+                return false;
+            }
+        }
+        springPosition = springTarget;
+        springVelocity = 0;
+        return true;
+    }
+
+    /**
+     * The callback to invoked on animation frames.
+     */
+    interface Callback {
+        /**
+         * Called on each animation frame.
+         * @param fraction The interpolated fraction of the animation, or the position of the
+         *                 spring.
+         */
+        void onAnimationUpdate(float fraction);
+
+        /**
+         * Called when the animation has reached its end, not called if it is canceled.
+         */
+        void onAnimationEnd();
+    }
+}
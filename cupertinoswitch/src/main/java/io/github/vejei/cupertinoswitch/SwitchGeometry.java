@@ -0,0 +1,153 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.graphics.RectF;
+
+/**
+ * The precomputed geometry of a switch: the track bounds, the slider start and end centers and
+ * the hit region. It is only rebuilt when the size, the layout direction or the slider and shadow
+ * configuration change, drawing, hit-testing and dragging read from it.
+ */
+final class SwitchGeometry {
+    /** The track bounds. */
+    final RectF trackRect = new RectF();
+    float trackCornerRadius;
+
+    /** The slider center at the off and the on state, the start is on the right if RTL. */
+    float sliderStartX;
+    float sliderEndX;
+    float sliderCenterY;
+
+    /** The radius of the track semicircles, used for hit-testing. */
+    private float hitRadiusSquared;
+    private float hitLeftCenterX;
+    private float hitRightCenterX;
+
+    /** The configuration the geometry is computed from. */
+    private int width = -1;
+    private int height = -1;
+    private int paddingLeft;
+    private int paddingTop;
+    private int paddingRight;
+    private int paddingBottom;
+    private int switchWidth;
+    private int switchHeight;
+    private int offset;
+    private boolean rtl;
+
+    /**
+     * Compute the geometry for the given configuration, if it has changed.
+     * @param width The width of the view.
+     * @param height The height of the view.
+     * @param switchWidth The width of the track.
+     * @param switchHeight The height of the track.
+     * @param offset The space reserved around the track for the slider shadow, horizontally.
+     * @param rtl True if the layout direction is right to left.
+     * @return True if the geometry has changed, false otherwise.
+     */
+    boolean update(int width, int height, int paddingLeft, int paddingTop, int paddingRight,
+                   int paddingBottom, int switchWidth, int switchHeight, int offset, boolean rtl) {
+        if (width == this.width && height == this.height && paddingLeft == this.paddingLeft
+                && paddingTop == this.paddingTop && paddingRight == this.paddingRight
+                && paddingBottom == this.paddingBottom && switchWidth == this.switchWidth
+                && switchHeight == this.switchHeight && offset == this.offset && rtl == this.rtl) {
+            return false;
+        }
+        this.width = width;
+        this.height = height;
+        this.paddingLeft = paddingLeft;
+        this.paddingTop = paddingTop;
+        this.paddingRight = paddingRight;
+        this.paddingBottom = paddingBottom;
+        this.switchWidth = switchWidth;
+        this.switchHeight = switchHeight;
+        this.offset = offset;
+        this.rtl = rtl;
+
+        int left;
+        int right;
+        if (!rtl) {
+            right = width - paddingRight - offset;
+            left = right - switchWidth;
+        } else {
+            left = paddingLeft + offset;
+            right = left + switchWidth;
+        }
+        int top = (paddingTop + height - paddingBottom) / 2 - switchHeight / 2;
+        trackRect.set(left, top, right, top + switchHeight);
+        trackCornerRadius = switchHeight / 2;
+
+        float semicircleRadius = switchHeight / 2f;
+        if (rtl) {
+            sliderStartX = right - semicircleRadius;
+            sliderEndX = left + semicircleRadius;
+        } else {
+            sliderStartX = left + semicircleRadius;
+            sliderEndX = right - semicircleRadius;
+        }
+        sliderCenterY = top + semicircleRadius;
+
+        hitRadiusSquared = semicircleRadius * semicircleRadius;
+        hitLeftCenterX = left + semicircleRadius;
+        hitRightCenterX = right - semicircleRadius;
+        return true;
+    }
+
+    boolean isRtl() {
+        return rtl;
+    }
+
+    /**
+     * Check whether the specified point is inside the track.
+     * @param x The x-coordinate of specified point
+     * @param y The y-coordinate of specified point
+     * @return true if specified point inside the track, false otherwise.
+     */
+    boolean contains(float x, float y) {
+        if (x < trackRect.left || x > trackRect.right || y < trackRect.top
+                || y > trackRect.bottom) {
+            return false;
+        }
+
+        // Inside the rectangle between the two semicircles.
+        if (x >= hitLeftCenterX && x <= hitRightCenterX) {
+            return true;
+        }
+
+        // Inside the left or the right semicircle.
+        return distanceSquared(x, y, hitLeftCenterX, sliderCenterY) <= hitRadiusSquared
+                || distanceSquared(x, y, hitRightCenterX, sliderCenterY) <= hitRadiusSquared;
+    }
+
+    /**
+     * @param x The x-coordinate of the slider center, in the view.
+     * @return The position of the slider, 0 at the off state and 1 at the on state.
+     */
+    float fractionAt(float x) {
+        float range = sliderEndX - sliderStartX;
+        return range == 0 ? 0 : (x - sliderStartX) / range;
+    }
+
+    /**
+     * @param fraction The position of the slider, 0 at the off state and 1 at the on state.
+     * @return The x-coordinate of the slider center, in the view.
+     */
+    float sliderXAt(float fraction) {
+        return sliderStartX + (sliderEndX - sliderStartX) * fraction;
+    }
+
+    /**
+     * @param x An x-coordinate in the view.
+     * @return The nearest x-coordinate the slider center can move to.
+     */
+    float constrainSliderX(float x) {
+        float min = Math.min(sliderStartX, sliderEndX);
+        float max = Math.max(sliderStartX, sliderEndX);
+        return x < min ? min : Math.min(x, max);
+    }
+
+    private static float distanceSquared(float x1, float y1, float x2, float y2) {
+        float dx = x1 - x2;
+        float dy = y1 - y2;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,270 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.Dimension;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Draws a switch from its geometry, its track color and its slider position, shared by
+ * {@link CupertinoSwitch}, {@link CupertinoSwitchGrid} and {@link CupertinoSwitchDrawable}.
+ * The slider is drawn from the shared pre-rendered slider with its shadow, and a switch at rest
+ * from the shared pre-rendered switch of its resting side.
+ */
+final class SwitchRenderer {
+    /** The paint used to blit the pre-rendered bitmaps, shared by all renderers until modified. */
+    private static final Paint sharedBitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private final Paint trackPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    /** The slider paint, shared with the {@link CupertinoSwitchStyle} until modified. */
+    private Paint sliderPaint;
+    private boolean sliderPaintShared;
+
+    private Paint bitmapPaint = sharedBitmapPaint;
+
+    /** The alpha the whole switch is drawn with. */
+    private int alpha = 255;
+
+    private int switchWidth;
+    private int switchHeight;
+    private int sliderRadius;
+    private int sliderColor;
+    private boolean sliderShadowEnabled;
+    private int sliderShadowRadius;
+    private int sliderShadowColor;
+
+    /** The pre-rendered slider with its shadow, null if the shadow is not drawn. */
+    private Bitmap sliderShadowBitmap;
+    private int sliderShadowExtent;
+
+    /**
+     * The pre-rendered switches at rest, indexed by the checked state, and the track colors and
+     * the slider sides they were rendered for. Null if not resolved yet or the appearance has
+     * changed.
+     */
+    private final Bitmap[] restingBitmaps = new Bitmap[2];
+    private final int[] restingTrackColors = new int[2];
+    private final boolean[] restingSliderRight = new boolean[2];
+    private int restingBitmapOutset;
+
+    /**
+     * @param style The appearance to draw, the slider paint of the style is shared until modified.
+     */
+    SwitchRenderer(@NonNull CupertinoSwitchStyle style) {
+        trackPaint.setStyle(Paint.Style.FILL);
+        sliderPaint = style.getSliderPaint();
+        sliderPaintShared = true;
+        switchWidth = style.getSwitchWidth();
+        switchHeight = style.getSwitchHeight();
+        sliderRadius = style.getSliderRadius();
+        sliderColor = style.getSliderColor();
+        sliderShadowEnabled = style.isSliderShadowEnabled();
+        sliderShadowRadius = style.getSliderShadowRadius();
+        sliderShadowColor = style.getSliderShadowColor();
+        updateSliderShadow();
+    }
+
+    /**
+     * @param switchWidth The track width pixel size.
+     * @param switchHeight The track height pixel size.
+     */
+    void setSwitchSize(@Dimension int switchWidth, @Dimension int switchHeight) {
+        if (this.switchWidth != switchWidth || this.switchHeight != switchHeight) {
+            this.switchWidth = switchWidth;
+            this.switchHeight = switchHeight;
+            clearRestingBitmaps();
+        }
+    }
+
+    /**
+     * Set the slider appearance, the pre-rendered slider is resolved again if it has changed.
+     * @param sliderRadius The slider radius pixel size.
+     * @param sliderColor A color value in the form 0xAARRGGBB.
+     * @param shadowEnabled True if the slider has a shadow, false otherwise.
+     * @param shadowRadius The slider shadow radius pixel size.
+     * @param shadowColor A color value in the form 0xAARRGGBB.
+     */
+    void setSlider(@Dimension int sliderRadius, @ColorInt int sliderColor, boolean shadowEnabled,
+                   @Dimension int shadowRadius, @ColorInt int shadowColor) {
+        if (this.sliderRadius == sliderRadius && this.sliderColor == sliderColor
+                && sliderShadowEnabled == shadowEnabled && sliderShadowRadius == shadowRadius
+                && sliderShadowColor == shadowColor) {
+            return;
+        }
+        if (this.sliderColor != sliderColor) {
+            this.sliderColor = sliderColor;
+            obtainSliderPaint().setColor(sliderColor);
+            sliderPaint.setAlpha(Color.alpha(sliderColor) * alpha / 255);
+        }
+        this.sliderRadius = sliderRadius;
+        sliderShadowEnabled = shadowEnabled;
+        sliderShadowRadius = shadowRadius;
+        sliderShadowColor = shadowColor;
+        updateSliderShadow();
+    }
+
+    /**
+     * @return The space reserved around the track for the slider shadow, if it overflows the
+     * track.
+     */
+    int getShadowOffset() {
+        if (sliderShadowEnabled && (sliderShadowRadius + sliderRadius) * 2 > switchHeight) {
+            return sliderShadowRadius;
+        }
+        return 0;
+    }
+
+    /**
+     * @return The distance from the slider center to the edges of what is drawn for it.
+     */
+    int getSliderExtent() {
+        return sliderShadowBitmap != null ? sliderShadowExtent : sliderRadius + 1;
+    }
+
+    /**
+     * Drop or restore the slider shadow if the battery saver has been toggled since it was
+     * resolved.
+     * @return True if the shadow has changed and the switch must be redrawn.
+     */
+    boolean refreshSliderShadow() {
+        if (isShadowDrawn() == (sliderShadowBitmap != null)) {
+            return false;
+        }
+        updateSliderShadow();
+        return true;
+    }
+
+    /**
+     * @return True if the slider shadow is drawn, it is dropped while the battery saver is on.
+     * The space of the shadow is kept in the layout, so that toggling it does not move the track.
+     */
+    private boolean isShadowDrawn() {
+        return sliderShadowEnabled && !MotionSettings.isPowerSaveMode();
+    }
+
+    /**
+     * Resolve the shared pre-rendered slider for the current slider and shadow attributes, the
+     * pre-rendered switches at rest are resolved again on the next idle draw.
+     */
+    private void updateSliderShadow() {
+        clearRestingBitmaps();
+        if (isShadowDrawn()) {
+            sliderShadowBitmap = SliderShadowCache.get(sliderRadius, sliderShadowRadius,
+                    sliderColor, sliderShadowColor);
+            sliderShadowExtent = SliderShadowCache.getExtent(sliderRadius, sliderShadowRadius);
+        } else {
+            sliderShadowBitmap = null;
+        }
+    }
+
+    private void clearRestingBitmaps() {
+        restingBitmaps[0] = null;
+        restingBitmaps[1] = null;
+    }
+
+    /**
+     * Draw the switch, in the coordinates of its geometry.
+     * @param checked The checked state the switch is in, or leaving.
+     * @param atRest True if the slider rests at the end of the checked state, with its track
+     *               color, so that the shared pre-rendered switch can be drawn instead.
+     * @param trackColor A color value in the form 0xAARRGGBB.
+     * @param sliderCenterX The x-coordinate of the slider center.
+     */
+    void draw(Canvas canvas, SwitchGeometry geometry, boolean checked, boolean atRest,
+              @ColorInt int trackColor, float sliderCenterX) {
+        if (atRest && drawRestingBitmap(canvas, geometry, checked, trackColor)) {
+            return;
+        }
+
+        trackPaint.setColor(trackColor);
+        if (alpha != 255) {
+            // The alpha of the track color is combined with the switch alpha.
+            trackPaint.setAlpha(Color.alpha(trackColor) * alpha / 255);
+        }
+        canvas.drawRoundRect(geometry.trackRect, geometry.trackCornerRadius,
+                geometry.trackCornerRadius, trackPaint);
+        if (sliderShadowBitmap != null) {
+            // Snapped to whole pixels, a bitmap drawn at a fractional offset is resampled, and
+            // so blurred, on every frame.
+            canvas.drawBitmap(sliderShadowBitmap, Math.round(sliderCenterX - sliderShadowExtent),
+                    Math.round(geometry.sliderCenterY - sliderShadowExtent), bitmapPaint);
+        } else {
+            canvas.drawCircle(sliderCenterX, geometry.sliderCenterY, sliderRadius, sliderPaint);
+        }
+    }
+
+    /**
+     * Draw the shared pre-rendered switch at rest.
+     * @return True if drawn, false if the switch must be drawn live.
+     */
+    private boolean drawRestingBitmap(Canvas canvas, SwitchGeometry geometry, boolean checked,
+                                      int trackColor) {
+        int index = checked ? 1 : 0;
+        boolean sliderRight = checked != geometry.isRtl();
+        Bitmap bitmap = restingBitmaps[index];
+        if (bitmap == null || restingTrackColors[index] != trackColor
+                || restingSliderRight[index] != sliderRight) {
+            int shadowRadius = sliderShadowBitmap != null ? sliderShadowRadius : -1;
+            bitmap = RestingSwitchCache.get(switchWidth, switchHeight, trackColor, sliderRight,
+                    sliderRadius, sliderColor, shadowRadius,
+                    sliderShadowBitmap != null ? sliderShadowColor : 0);
+            restingBitmapOutset = RestingSwitchCache.getOutset(switchHeight, sliderRadius,
+                    shadowRadius);
+            restingBitmaps[index] = bitmap;
+            restingTrackColors[index] = trackColor;
+            restingSliderRight[index] = sliderRight;
+        }
+        if (bitmap == null) {
+            return false;
+        }
+
+        canvas.drawBitmap(bitmap, geometry.trackRect.left - restingBitmapOutset,
+                geometry.trackRect.top - restingBitmapOutset, bitmapPaint);
+        return true;
+    }
+
+    int getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * @param alpha The alpha the whole switch is drawn with, from 0 to 255.
+     */
+    void setAlpha(int alpha) {
+        this.alpha = alpha;
+        obtainBitmapPaint().setAlpha(alpha);
+        obtainSliderPaint().setAlpha(Color.alpha(sliderColor) * alpha / 255);
+    }
+
+    /**
+     * @param colorFilter The color filter the whole switch is drawn with, may be null.
+     */
+    void setColorFilter(@Nullable ColorFilter colorFilter) {
+        trackPaint.setColorFilter(colorFilter);
+        obtainSliderPaint().setColorFilter(colorFilter);
+        obtainBitmapPaint().setColorFilter(colorFilter);
+    }
+
+    private Paint obtainSliderPaint() {
+        if (sliderPaintShared) {
+            // Copy on write, the style paint is shared by other switches.
+            sliderPaint = new Paint(sliderPaint);
+            sliderPaintShared = false;
+        }
+        return sliderPaint;
+    }
+
+    private Paint obtainBitmapPaint() {
+        if (bitmapPaint == sharedBitmapPaint) {
+            bitmapPaint = new Paint(sharedBitmapPaint);
+        }
+        return bitmapPaint;
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.util.LruCache;
+
+import androidx.annotation.ColorInt;
+
+/**
+ * A precomputed blend of the off and on track colors, so that resolving the track color of a
+ * frame is an array lookup instead of per-channel power functions.
+ * The ramps are shared process-wide by every switch with the same palette, in a bounded cache.
+ */
+final class TrackColorRamp {
+    /** The number of steps of a ramp, finer than a level of an 8-bit channel. */
+    private static final int STEPS = 256;
+
+    /** The maximum number of cached ramps, about 1KB each. */
+    private static final int MAX_CACHE_COUNT = 64;
+
+    private static final LruCache<Key, TrackColorRamp> cache =
+            new LruCache<>(MAX_CACHE_COUNT);
+
+    private final int[] colors = new int[STEPS + 1];
+
+    private TrackColorRamp(int offColor, int onColor, int blend) {
+        for (int i = 0; i <= STEPS; i++) {
+            float fraction = i / (float) STEPS;
+            colors[i] = blend == CupertinoSwitch.TRACK_COLOR_BLEND_PERCEPTUAL
+                    ? evaluateOklab(fraction, offColor, onColor)
+                    : ViewUtils.evaluateArgb(fraction, offColor, onColor);
+        }
+        // The resting colors are exact, whatever the rounding of the blend.
+        colors[0] = offColor;
+        colors[STEPS] = onColor;
+    }
+
+    /**
+     * Get the shared ramp of the given palette.
+     * @param offColor A color value in the form 0xAARRGGBB, at fraction 0.
+     * @param onColor A color value in the form 0xAARRGGBB, at fraction 1.
+     * @param blend One of {@link CupertinoSwitch#TRACK_COLOR_BLEND_LINEAR} or
+     *              {@link CupertinoSwitch#TRACK_COLOR_BLEND_PERCEPTUAL}.
+     * @return The cached ramp.
+     */
+    static TrackColorRamp get(@ColorInt int offColor, @ColorInt int onColor,
+                              @CupertinoSwitch.TrackColorBlend int blend) {
+        Key key = new Key(offColor, onColor, blend);
+        TrackColorRamp ramp = cache.get(key);
+        if (ramp == null) {
+            ramp = new TrackColorRamp(offColor, onColor, blend);
+            cache.put(key, ramp);
+        }
+        return ramp;
+    }
+
+    /**
+     * @param fraction The fraction from the off to the on color, clamped to [0, 1].
+     * @return The blended color.
+     */
+    @ColorInt
+    int colorAt(float fraction) {
+        if (fraction <= 0) {
+            return colors[0];
+        }
+        if (fraction >= 1) {
+            return colors[STEPS];
+        }
+        return colors[(int) (fraction * STEPS + 0.5f)];
+    }
+
+    /**
+     * Blend two colors in the Oklab space, where the intermediate colors keep an even perceived
+     * lightness and hue instead of dipping through gray.
+     */
+    private static int evaluateOklab(float fraction, int startValue, int endValue) {
+        float[] start = toOklab(startValue);
+        float[] end = toOklab(endValue);
+        float l = start[0] + fraction * (end[0] - start[0]);
+        float a = start[1] + fraction * (end[1] - start[1]);
+        float b = start[2] + fraction * (end[2] - start[2]);
+
+        float l1 = cube(l + 0.3963377774f * a + 0.2158037573f * b);
+        float m1 = cube(l - 0.1055613458f * a - 0.0638541728f * b);
+        float s1 = cube(l - 0.0894841775f * a - 1.2914855480f * b);
+        float red = 4.0767416621f * l1 - 3.3077115913f * m1 + 0.2309699292f * s1;
+        float green = -1.2684380046f * l1 + 2.6097574011f * m1 - 0.3413193965f * s1;
+        float blue = -0.0041960863f * l1 - 0.7034186147f * m1 + 1.7076147010f * s1;
+
+        float startA = (startValue >>> 24) / 255.0f;
+        float endA = (endValue >>> 24) / 255.0f;
+        float alpha = startA + fraction * (endA - startA);
+        return Math.round(alpha * 255.0f) << 24 | toSrgbChannel(red) << 16
+                | toSrgbChannel(green) << 8 | toSrgbChannel(blue);
+    }
+
+    private static float[] toOklab(int color) {
+        float red = toLinear(((color >> 16) & 0xff) / 255.0f);
+        float green = toLinear(((color >> 8) & 0xff) / 255.0f);
+        float blue = toLinear((color & 0xff) / 255.0f);
+
+        float l = (float) Math.cbrt(0.4122214708f * red + 0.5363325363f * green
+                + 0.0514459929f * blue);
+        float m = (float) Math.cbrt(0.2119034982f * red + 0.6806995451f * green
+                + 0.1073969566f * blue);
+        float s = (float) Math.cbrt(0.0883024619f * red + 0.2817188376f * green
+                + 0.6299787005f * blue);
+        return new float[] {
+                0.2104542553f * l + 0.7936177850f * m - 0.0040720468f * s,
+                1.9779984951f * l - 2.4285922050f * m + 0.4505937099f * s,
+                0.0259040371f * l + 0.7827717662f * m - 0.8086757660f * s
+        };
+    }
+
+    private static float cube(float value) {
+        return value * value * value;
+    }
+
+    /** The sRGB transfer function, from an encoded to a linear value. */
+    private static float toLinear(float value) {
+        return value <= 0.04045f ? value / 12.92f
+                : (float) Math.pow((value + 0.055f) / 1.055f, 2.4);
+    }
+
+    /** The inverse sRGB transfer function, to an 8-bit encoded value. */
+    private static int toSrgbChannel(float value) {
+        value = Math.max(0f, Math.min(1f, value));
+        float encoded = value <= 0.0031308f ? value * 12.92f
+                : 1.055f * (float) Math.pow(value, 1 / 2.4) - 0.055f;
+        return Math.round(encoded * 255.0f);
+    }
+
+    private static final class Key {
+        private final int offColor;
+        private final int onColor;
+        private final int blend;
+
+        Key(int offColor, int onColor, int blend) {
+            this.offColor = offColor;
+            this.onColor = onColor;
+            this.blend = blend;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return offColor == key.offColor && onColor == key.onColor && blend == key.blend;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = offColor;
+            result = 31 * result + onColor;
+            result = 31 * result + blend;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.vejei.cupertinoswitch;
+
+/**
+ * Frame timing of a single switch transition, reported to the
+ * {@link CupertinoSwitch.OnTransitionMetricsListener}.
+ * The same instance is reused by the switch for each transition, copy the values to keep them
+ * beyond the listener call.
+ */
+public final class TransitionMetrics {
+    private int frameCount;
+    private int droppedFrameCount;
+    private long drawTimeNanos;
+    private long touchToFirstFrameNanos;
+    private long durationNanos;
+
+    /** The Choreographer time of the previous animation frame, 0 if none yet. */
+    private long lastFrameTimeNanos;
+    private long frameIntervalNanos;
+    private long startTimeNanos;
+    private long touchDownTimeNanos;
+    private boolean firstFrameDrawn;
+
+    TransitionMetrics() {
+    }
+
+    /**
+     * @return The number of animation frames of the transition.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return The number of frames skipped between the animation frames, based on the display
+     * refresh rate.
+     */
+    public int getDroppedFrameCount() {
+        return droppedFrameCount;
+    }
+
+    /**
+     * @return The total time spent in onDraw during the transition, in nanoseconds.
+     */
+    public long getDrawTimeNanos() {
+        return drawTimeNanos;
+    }
+
+    /**
+     * @return The time from the ACTION_DOWN event to the end of the first frame drawn by the
+     * transition, in nanoseconds, or -1 if the transition is not started by a touch.
+     */
+    public long getTouchToFirstFrameNanos() {
+        return touchToFirstFrameNanos;
+    }
+
+    /**
+     * @return The wall time from the start to the end of the transition, in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Start recording a new transition.
+     * @param startTimeNanos The start time, in the {@link System#nanoTime()} time base.
+     * @param touchDownTimeNanos The time of the ACTION_DOWN event starting the transition, 0 if
+     *                           it is not started by a touch.
+     * @param frameIntervalNanos The display refresh interval.
+     */
+    void start(long startTimeNanos, long touchDownTimeNanos, long frameIntervalNanos) {
+        frameCount = 0;
+        droppedFrameCount = 0;
+        drawTimeNanos = 0;
+        touchToFirstFrameNanos = -1;
+        durationNanos = 0;
+        lastFrameTimeNanos = 0;
+        firstFrameDrawn = false;
+        this.startTimeNanos = startTimeNanos;
+        this.touchDownTimeNanos = touchDownTimeNanos;
+        this.frameIntervalNanos = frameIntervalNanos;
+    }
+
+    void onAnimationFrame(long frameTimeNanos) {
+        frameCount++;
+        if (lastFrameTimeNanos != 0 && frameIntervalNanos > 0) {
+            long skipped = Math.round((double) (frameTimeNanos - lastFrameTimeNanos)
+                    / frameIntervalNanos) - 1;
+            if (skipped > 0) {
+                droppedFrameCount += skipped;
+            }
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+    }
+
+    void onDraw(long startNanos, long endNanos) {
+        drawTimeNanos += endNanos - startNanos;
+        if (!firstFrameDrawn) {
+            firstFrameDrawn = true;
+            if (touchDownTimeNanos != 0) {
+                touchToFirstFrameNanos = endNanos - touchDownTimeNanos;
+            }
+        }
+    }
+
+    void end(long endTimeNanos) {
+        durationNanos = endTimeNanos - startTimeNanos;
+    }
+}
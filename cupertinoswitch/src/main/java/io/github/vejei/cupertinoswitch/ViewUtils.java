@@ -5,6 +5,7 @@ import android.content.res.Resources;
 import android.util.TypedValue;
 import android.view.View;
 
+import androidx.annotation.ColorInt;
 import androidx.annotation.Dimension;
 import androidx.annotation.NonNull;
 import androidx.core.view.ViewCompat;
@@ -18,4 +19,41 @@ class ViewUtils {
         Resources r = context.getResources();
         return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, r.getDisplayMetrics());
     }
+
+    /**
+     * Blend two colors the same way as {@link android.animation.ArgbEvaluator}, in linear space,
+     * without boxing the values.
+     * @param fraction The fraction from the starting to the ending values.
+     * @param startValue A color value in the form 0xAARRGGBB.
+     * @param endValue A color value in the form 0xAARRGGBB.
+     * @return The blended color.
+     */
+    public static int evaluateArgb(float fraction, @ColorInt int startValue,
+                                   @ColorInt int endValue) {
+        float startA = ((startValue >> 24) & 0xff) / 255.0f;
+        float startR = toLinear(((startValue >> 16) & 0xff) / 255.0f);
+        float startG = toLinear(((startValue >> 8) & 0xff) / 255.0f);
+        float startB = toLinear((startValue & 0xff) / 255.0f);
+
+        float endA = ((endValue >> 24) & 0xff) / 255.0f;
+        float endR = toLinear(((endValue >> 16) & 0xff) / 255.0f);
+        float endG = toLinear(((endValue >> 8) & 0xff) / 255.0f);
+        float endB = toLinear((endValue & 0xff) / 255.0f);
+
+        float a = startA + fraction * (endA - startA);
+        float r = startR + fraction * (endR - startR);
+        float g = startG + fraction * (endG - startG);
+        float b = startB + fraction * (endB - startB);
+
+        return Math.round(a * 255.0f) << 24 | Math.round(toSrgb(r) * 255.0f) << 16
+                | Math.round(toSrgb(g) * 255.0f) << 8 | Math.round(toSrgb(b) * 255.0f);
+    }
+
+    private static float toLinear(float value) {
+        return (float) Math.pow(value, 2.2);
+    }
+
+    private static float toSrgb(float value) {
+        return (float) Math.pow(value, 1.0 / 2.2);
+    }
 }
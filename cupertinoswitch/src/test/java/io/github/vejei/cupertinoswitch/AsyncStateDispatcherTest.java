@@ -0,0 +1,161 @@
+package io.github.vejei.cupertinoswitch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * JVM test of the {@link AsyncStateDispatcher} delivery tasks.
+ */
+public class AsyncStateDispatcherTest {
+    private final ArrayList<Runnable> tasks = new ArrayList<>();
+    private final ArrayList<Boolean> delivered = new ArrayList<>();
+
+    private final Executor executor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+    };
+
+    private final CupertinoSwitch.OnStateChangeListener recordingListener =
+            new CupertinoSwitch.OnStateChangeListener() {
+                @Override
+                public void onChanged(CupertinoSwitch view, boolean checked) {
+                    delivered.add(checked);
+                }
+
+                @Override
+                public void onSwitchOn(CupertinoSwitch view) {
+                }
+
+                @Override
+                public void onSwitchOff(CupertinoSwitch view) {
+                }
+            };
+
+    @Test
+    public void throwingListenerDoesNotStopLaterDeliveries() {
+        AsyncStateDispatcher dispatcher = new AsyncStateDispatcher(null,
+                new CupertinoSwitch.OnStateChangeListener() {
+                    @Override
+                    public void onChanged(CupertinoSwitch view, boolean checked) {
+                        delivered.add(checked);
+                        if (delivered.size() == 1) {
+                            throw new IllegalStateException();
+                        }
+                    }
+
+                    @Override
+                    public void onSwitchOn(CupertinoSwitch view) {
+                    }
+
+                    @Override
+                    public void onSwitchOff(CupertinoSwitch view) {
+                    }
+                }, executor, AsyncStateDispatcher.DEFAULT_CAPACITY);
+
+        dispatcher.enqueue(true);
+        try {
+            tasks.remove(0).run();
+            fail();
+        } catch (IllegalStateException expected) {
+            // Thrown by the listener.
+        }
+
+        dispatcher.enqueue(false);
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(2, delivered.size());
+        assertEquals(false, delivered.get(1));
+    }
+
+    @Test
+    public void fullQueueDropsTheOldestChanges() {
+        AsyncStateDispatcher dispatcher = new AsyncStateDispatcher(null, recordingListener,
+                executor, 3);
+        dispatcher.enqueue(true);
+        dispatcher.enqueue(false);
+        dispatcher.enqueue(true);
+        dispatcher.enqueue(true);
+        dispatcher.enqueue(false);
+
+        tasks.remove(0).run();
+        assertEquals(Arrays.asList(true, true, false), delivered);
+    }
+
+    @Test
+    public void oneDeliveryTaskWhileChangesArePending() {
+        AsyncStateDispatcher dispatcher = new AsyncStateDispatcher(null, recordingListener,
+                executor, AsyncStateDispatcher.DEFAULT_CAPACITY);
+        dispatcher.enqueue(true);
+        dispatcher.enqueue(false);
+        dispatcher.enqueue(true);
+        assertEquals(1, tasks.size());
+
+        tasks.remove(0).run();
+        assertEquals(Arrays.asList(true, false, true), delivered);
+        assertTrue(tasks.isEmpty());
+
+        // The queue has been drained, the next change schedules a new task.
+        dispatcher.enqueue(false);
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void changesAreDeliveredInOrderOnAThreadPool() throws InterruptedException {
+        final int count = 1000;
+        final List<Boolean> received = Collections.synchronizedList(new ArrayList<Boolean>());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(count);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        AsyncStateDispatcher dispatcher = new AsyncStateDispatcher(null,
+                new CupertinoSwitch.OnStateChangeListener() {
+                    @Override
+                    public void onChanged(CupertinoSwitch view, boolean checked) {
+                        int concurrent = running.incrementAndGet();
+                        maxRunning.set(Math.max(maxRunning.get(), concurrent));
+                        received.add(checked);
+                        running.decrementAndGet();
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onSwitchOn(CupertinoSwitch view) {
+                    }
+
+                    @Override
+                    public void onSwitchOff(CupertinoSwitch view) {
+                    }
+                }, pool, count);
+
+        ArrayList<Boolean> sent = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // An irregular pattern, so that a reordering shows.
+            boolean checked = i % 3 == 0 || i % 7 == 0;
+            sent.add(checked);
+            dispatcher.enqueue(checked);
+        }
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(sent, received);
+        assertEquals(1, maxRunning.get());
+    }
+}
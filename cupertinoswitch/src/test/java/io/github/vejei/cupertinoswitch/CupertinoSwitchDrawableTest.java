@@ -0,0 +1,126 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.PowerManager;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * JVM test of the {@link CupertinoSwitchDrawable} transitions, run on a fake frame clock.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CupertinoSwitchDrawableTest {
+    private static final int[] CHECKED_STATE = {android.R.attr.state_checked};
+    private static final int[] UNCHECKED_STATE = {};
+
+    private FakeFrameClock frameClock;
+    private CupertinoSwitchDrawable drawable;
+    private int invalidations;
+
+    private final Drawable.Callback callback = new Drawable.Callback() {
+        @Override
+        public void invalidateDrawable(@NonNull Drawable who) {
+            invalidations++;
+        }
+
+        @Override
+        public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
+        }
+
+        @Override
+        public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
+        }
+    };
+
+    @Before
+    public void setUp() {
+        frameClock = new FakeFrameClock();
+        FrameScheduler.setInstance(frameClock);
+        MotionSettings.reset();
+        drawable = new CupertinoSwitchDrawable(ApplicationProvider.getApplicationContext());
+        drawable.setBounds(0, 0, drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight());
+    }
+
+    @After
+    public void tearDown() {
+        FrameScheduler.setInstance(null);
+        MotionSettings.reset();
+    }
+
+    @Test
+    public void withoutCallbackJumpsToState() {
+        drawable.setChecked(true);
+        assertTrue(drawable.isChecked());
+        assertFalse(drawable.isRunning());
+    }
+
+    @Test
+    public void withCallbackAnimatesToState() {
+        drawable.setCallback(callback);
+        drawable.setChecked(true);
+        assertTrue(drawable.isRunning());
+
+        frameClock.settle();
+        assertFalse(drawable.isRunning());
+        assertTrue(drawable.isChecked());
+        assertTrue(invalidations > 1);
+    }
+
+    @Test
+    public void followsCheckedState() {
+        drawable.setCallback(callback);
+        assertTrue(drawable.setState(CHECKED_STATE));
+        assertTrue(drawable.isChecked());
+        drawable.jumpToCurrentState();
+        assertFalse(drawable.isRunning());
+
+        assertTrue(drawable.setState(UNCHECKED_STATE));
+        assertFalse(drawable.isChecked());
+        assertTrue(drawable.isRunning());
+        frameClock.settle();
+        assertFalse(drawable.isChecked());
+    }
+
+    @Test
+    public void alphaIsKeptAcrossTransitions() {
+        Bitmap bitmap = Bitmap.createBitmap(drawable.getIntrinsicWidth(),
+                drawable.getIntrinsicHeight(), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setCallback(callback);
+        drawable.setAlpha(128);
+        drawable.setChecked(true);
+        frameClock.nextFrame();
+        drawable.draw(canvas);
+        frameClock.settle();
+        drawable.draw(canvas);
+        assertEquals(128, drawable.getAlpha());
+    }
+
+    @Test
+    public void idleDrawReadsThePowerSaveMode() {
+        Context context = ApplicationProvider.getApplicationContext();
+        PowerManager powerManager = (PowerManager) context.getSystemService(
+                Context.POWER_SERVICE);
+        shadowOf(powerManager).setIsPowerSaveMode(true);
+
+        // Nothing observes the settings, the drawable reads them when drawn.
+        drawable.draw(new Canvas(Bitmap.createBitmap(drawable.getIntrinsicWidth(),
+                drawable.getIntrinsicHeight(), Bitmap.Config.ARGB_8888)));
+        assertTrue(MotionSettings.isPowerSaveMode());
+    }
+}
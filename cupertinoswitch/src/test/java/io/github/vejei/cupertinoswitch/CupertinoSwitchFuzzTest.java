@@ -0,0 +1,131 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.os.Looper;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Randomized JVM test of the {@link CupertinoSwitch} state machine: whatever the interleaving of
+ * touches, state changes and frames, the switch settles at rest in its checked state, and the
+ * listener has seen every change of it.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CupertinoSwitchFuzzTest {
+    /** Fixed, so that a failure is reproducible. */
+    private static final long SEED = 0x5eed;
+    private static final int SEQUENCE_COUNT = 2000;
+    private static final int MAX_SEQUENCE_LENGTH = 8;
+    private static final float DELTA = 0.0001f;
+
+    private FakeFrameClock frameClock;
+    private CupertinoSwitch cupertinoSwitch;
+    private SwitchGestures gestures;
+
+    /** The state last reported to the listener, or set without notification. */
+    private boolean knownChecked;
+
+    @Before
+    public void setUp() {
+        frameClock = new FakeFrameClock();
+        FrameScheduler.setInstance(frameClock);
+
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class)
+                .create();
+        Activity activity = controller.get();
+        cupertinoSwitch = new CupertinoSwitch(activity);
+        cupertinoSwitch.setTrackOffColor(Color.GRAY);
+        cupertinoSwitch.setTrackOnColor(Color.GREEN);
+        cupertinoSwitch.setOnStateChangeListener(new CupertinoSwitch.OnStateChangeListener() {
+            @Override
+            public void onChanged(CupertinoSwitch view, boolean checked) {
+                knownChecked = checked;
+            }
+
+            @Override
+            public void onSwitchOn(CupertinoSwitch view) {
+            }
+
+            @Override
+            public void onSwitchOff(CupertinoSwitch view) {
+            }
+        });
+
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(cupertinoSwitch, ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT);
+        activity.setContentView(root);
+        controller.start().resume().visible();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        gestures = new SwitchGestures(cupertinoSwitch);
+    }
+
+    @After
+    public void tearDown() {
+        FrameScheduler.setInstance(null);
+    }
+
+    @Test
+    public void randomInteractionsSettleConsistently() {
+        Random random = new Random(SEED);
+        for (int sequence = 0; sequence < SEQUENCE_COUNT; sequence++) {
+            int length = 1 + random.nextInt(MAX_SEQUENCE_LENGTH);
+            for (int i = 0; i < length; i++) {
+                interact(random);
+            }
+            frameClock.settle();
+
+            String message = "sequence " + sequence + " of seed " + SEED;
+            boolean checked = cupertinoSwitch.isChecked();
+            assertFalse(message, cupertinoSwitch.isTransitionRunning());
+            assertEquals(message, knownChecked, checked);
+            assertEquals(message, checked ? 1 : 0, cupertinoSwitch.getSliderPosition(), DELTA);
+            assertEquals(message, checked ? Color.GREEN : Color.GRAY,
+                    cupertinoSwitch.getTrackColor());
+        }
+    }
+
+    private void interact(Random random) {
+        switch (random.nextInt(7)) {
+            case 0:
+                gestures.tap();
+                break;
+            case 1:
+                gestures.drag(random.nextFloat(), random.nextFloat(), 20 + random.nextInt(400),
+                        random.nextBoolean() ? 0 : 250);
+                break;
+            case 2:
+                cupertinoSwitch.setChecked(random.nextBoolean());
+                break;
+            case 3:
+                boolean checked = random.nextBoolean();
+                cupertinoSwitch.jumpToState(checked);
+                knownChecked = checked;
+                break;
+            case 4:
+                cupertinoSwitch.setSwitchAnimation(random.nextBoolean()
+                        ? CupertinoSwitch.SWITCH_ANIMATION_SPRING
+                        : CupertinoSwitch.SWITCH_ANIMATION_TIMED);
+                break;
+            default:
+                frameClock.advance(random.nextInt(300));
+                break;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * JVM test of the {@link CupertinoSwitchGrid} state arrays and touch routing, the transitions run
+ * on a fake frame clock.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CupertinoSwitchGridTest {
+    private static final int SWITCH_COUNT = 6;
+    private static final int COLUMN_COUNT = 3;
+
+    private FakeFrameClock frameClock;
+    private CupertinoSwitchGrid grid;
+    private final ArrayList<Integer> changes = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        frameClock = new FakeFrameClock();
+        FrameScheduler.setInstance(frameClock);
+
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class)
+                .create();
+        Activity activity = controller.get();
+        grid = new CupertinoSwitchGrid(activity);
+        grid.setSwitchCount(SWITCH_COUNT);
+        grid.setColumnCount(COLUMN_COUNT);
+        grid.setOnSwitchChangeListener(new CupertinoSwitchGrid.OnSwitchChangeListener() {
+            @Override
+            public void onSwitchChanged(CupertinoSwitchGrid grid, int index, boolean checked) {
+                changes.add(checked ? index : ~index);
+            }
+        });
+
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(grid, ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT);
+        activity.setContentView(root);
+        controller.start().resume().visible();
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @After
+    public void tearDown() {
+        SwitchAnimationCoordinator.setEnabled(false);
+        SwitchAnimationCoordinator.setMaxConcurrentAnimations(0);
+        FrameScheduler.setInstance(null);
+    }
+
+    @Test
+    public void tapTogglesTheTouchedSwitch() {
+        tap(4);
+        assertFalse(grid.isChecked(4));
+        assertTrue(changes.isEmpty());
+
+        frameClock.settle();
+        assertTrue(grid.isChecked(4));
+        for (int i = 0; i < SWITCH_COUNT; i++) {
+            assertEquals(i == 4, grid.isChecked(i));
+        }
+        assertEquals(1, changes.size());
+        assertEquals(4, (int) changes.get(0));
+    }
+
+    @Test
+    public void moveWithinTouchSlopIsATap() {
+        int touchSlop = ViewConfiguration.get(grid.getContext()).getScaledTouchSlop();
+        tap(4, touchSlop);
+        frameClock.settle();
+        assertTrue(grid.isChecked(4));
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    public void movePastTouchSlopDragsTheSlider() {
+        int touchSlop = ViewConfiguration.get(grid.getContext()).getScaledTouchSlop();
+        float x = getCellCenterX(1);
+        float y = getCellCenterY(1);
+        float cellWidth = grid.getWidth() / (float) COLUMN_COUNT;
+        long downTime = SystemClock.uptimeMillis();
+        send(downTime, downTime, MotionEvent.ACTION_DOWN, x, y);
+        send(downTime, downTime + 100, MotionEvent.ACTION_MOVE, x + touchSlop + 1, y);
+        // Released slowly near the on end, the position decides the state.
+        send(downTime, downTime + 1000, MotionEvent.ACTION_MOVE, x + cellWidth / 2, y);
+        send(downTime, downTime + 2000, MotionEvent.ACTION_UP, x + cellWidth / 2, y);
+
+        frameClock.settle();
+        assertTrue(grid.isChecked(1));
+        assertEquals(1, changes.size());
+        assertEquals(1, (int) changes.get(0));
+    }
+
+    @Test
+    public void switchesAnimateIndependently() {
+        grid.setChecked(0, true);
+        frameClock.advance(100);
+        grid.setChecked(5, true);
+        tap(0);
+
+        frameClock.settle();
+        assertFalse(grid.isChecked(0));
+        assertTrue(grid.isChecked(5));
+        assertEquals(1, changes.size());
+        assertEquals(5, (int) changes.get(0));
+    }
+
+    @Test
+    public void coordinatorLimitsTheCellTransitions() {
+        SwitchAnimationCoordinator.setEnabled(true);
+        SwitchAnimationCoordinator.setMaxConcurrentAnimations(1);
+        grid.setChecked(0, true);
+        grid.setChecked(1, true);
+
+        // The transition started over the limit ends on its first frame.
+        frameClock.nextFrame();
+        assertFalse(grid.isChecked(0));
+        assertTrue(grid.isChecked(1));
+
+        frameClock.settle();
+        assertTrue(grid.isChecked(0));
+        assertEquals(2, changes.size());
+    }
+
+    @Test
+    public void jumpToStateDoesNotNotify() {
+        grid.setChecked(2, true);
+        frameClock.advance(100);
+        grid.jumpToState(2, true);
+        assertTrue(grid.isChecked(2));
+
+        frameClock.settle();
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void resizingKeepsTheStates() {
+        grid.jumpToState(1, true);
+        grid.setSwitchCount(2);
+        grid.setSwitchCount(SWITCH_COUNT);
+        assertTrue(grid.isChecked(1));
+        assertFalse(grid.isChecked(SWITCH_COUNT - 1));
+    }
+
+    /**
+     * Tap the middle of a cell, which is the middle of its track.
+     */
+    private void tap(int index) {
+        tap(index, 0);
+    }
+
+    /**
+     * Tap the middle of a cell, the finger moving by the given distance before it is lifted.
+     */
+    private void tap(int index, float moveBy) {
+        float x = getCellCenterX(index);
+        float y = getCellCenterY(index);
+        long downTime = SystemClock.uptimeMillis();
+        send(downTime, downTime, MotionEvent.ACTION_DOWN, x, y);
+        if (moveBy != 0) {
+            send(downTime, downTime, MotionEvent.ACTION_MOVE, x + moveBy, y);
+        }
+        send(downTime, downTime, MotionEvent.ACTION_UP, x + moveBy, y);
+    }
+
+    private float getCellCenterX(int index) {
+        float cellWidth = grid.getWidth() / (float) COLUMN_COUNT;
+        return cellWidth * (index % COLUMN_COUNT + 0.5f);
+    }
+
+    private float getCellCenterY(int index) {
+        float cellHeight = grid.getHeight() / (float) (SWITCH_COUNT / COLUMN_COUNT);
+        return cellHeight * (index / COLUMN_COUNT + 0.5f);
+    }
+
+    private void send(long downTime, long eventTime, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x, y, 0);
+        grid.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.util.SparseBooleanArray;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * JVM test of the {@link CupertinoSwitchGroup} change sets, the transitions run on a fake frame
+ * clock.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CupertinoSwitchGroupTest {
+    private static final int SWITCH_COUNT = 3;
+
+    private FakeFrameClock frameClock;
+    private CupertinoSwitchGroup group;
+    private final ArrayList<CupertinoSwitch> switches = new ArrayList<>();
+    private final ArrayList<Integer> switchChanges = new ArrayList<>();
+    private final ArrayList<SparseBooleanArray> groupChanges = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        frameClock = new FakeFrameClock();
+        FrameScheduler.setInstance(frameClock);
+
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class)
+                .create();
+        Activity activity = controller.get();
+        group = new CupertinoSwitchGroup();
+        // Laid out by a plain layout, the group is not a view.
+        LinearLayout root = new LinearLayout(activity);
+        for (int i = 0; i < SWITCH_COUNT; i++) {
+            CupertinoSwitch cupertinoSwitch = new CupertinoSwitch(activity);
+            cupertinoSwitch.setId(i + 1);
+            cupertinoSwitch.setOnStateChangeListener(new CupertinoSwitch.OnStateChangeListener() {
+                @Override
+                public void onChanged(CupertinoSwitch view, boolean checked) {
+                    switchChanges.add(checked ? view.getId() : -view.getId());
+                }
+
+                @Override
+                public void onSwitchOn(CupertinoSwitch view) {
+                }
+
+                @Override
+                public void onSwitchOff(CupertinoSwitch view) {
+                }
+            });
+            root.addView(cupertinoSwitch, ViewGroup.LayoutParams.WRAP_CONTENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT);
+            group.addSwitch(cupertinoSwitch);
+            switches.add(cupertinoSwitch);
+        }
+        group.setOnGroupStateChangeListener(new CupertinoSwitchGroup.OnGroupStateChangeListener() {
+            @Override
+            public void onStatesChanged(CupertinoSwitchGroup group, SparseBooleanArray changes) {
+                groupChanges.add(changes);
+            }
+        });
+
+        activity.setContentView(root);
+        controller.start().resume().visible();
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @After
+    public void tearDown() {
+        FrameScheduler.setInstance(null);
+    }
+
+    @Test
+    public void animatedStatesNotifyEverySwitch() {
+        group.setStates(states(), true);
+        assertTrue(switchChanges.isEmpty());
+        assertTrue(groupChanges.isEmpty());
+
+        frameClock.settle();
+        assertChanges();
+    }
+
+    @Test
+    public void immediateStatesNotifyEverySwitch() {
+        group.setStates(states(), false);
+        assertChanges();
+    }
+
+    @Test
+    public void removedSwitchIsLeftAsItIs() {
+        group.removeSwitch(switches.get(2));
+        assertEquals(SWITCH_COUNT - 1, group.getSwitchCount());
+
+        group.setStates(states(), false);
+        assertEquals(1, groupChanges.size());
+        assertEquals(1, groupChanges.get(0).size());
+        assertTrue(groupChanges.get(0).get(1));
+        assertFalse(switches.get(2).isChecked());
+    }
+
+    @Test
+    public void removingAPendingSwitchDeliversTheOtherChanges() {
+        group.setStates(states(), true);
+        frameClock.nextFrame();
+        group.removeSwitch(switches.get(2));
+        assertTrue(groupChanges.isEmpty());
+
+        frameClock.settle();
+        assertEquals(1, groupChanges.size());
+        assertEquals(1, groupChanges.get(0).size());
+        assertTrue(groupChanges.get(0).get(1));
+    }
+
+    @Test
+    public void switchBelongsToOneGroup() {
+        CupertinoSwitchGroup otherGroup = new CupertinoSwitchGroup();
+        otherGroup.addSwitch(switches.get(0));
+        assertEquals(SWITCH_COUNT - 1, group.getSwitchCount());
+        assertEquals(1, otherGroup.getSwitchCount());
+
+        group.setStates(states(), false);
+        assertFalse(switches.get(0).isChecked());
+    }
+
+    /**
+     * @return The first and the last switches checked, the middle one left unchecked.
+     */
+    private static SparseBooleanArray states() {
+        SparseBooleanArray states = new SparseBooleanArray();
+        states.put(1, true);
+        states.put(2, false);
+        states.put(3, true);
+        return states;
+    }
+
+    private void assertChanges() {
+        assertEquals(2, switchChanges.size());
+        assertTrue(switchChanges.contains(1));
+        assertTrue(switchChanges.contains(3));
+
+        assertEquals(1, groupChanges.size());
+        SparseBooleanArray changes = groupChanges.get(0);
+        assertEquals(2, changes.size());
+        assertTrue(changes.get(1));
+        assertTrue(changes.get(3));
+    }
+}
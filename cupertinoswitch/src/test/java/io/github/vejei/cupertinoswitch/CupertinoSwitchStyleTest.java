@@ -0,0 +1,70 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.util.AttributeSet;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * JVM test of the {@link CupertinoSwitchStyle} cache.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CupertinoSwitchStyleTest {
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+    }
+
+    @Test
+    public void themeStyleIsShared() {
+        assertSame(CupertinoSwitchStyle.obtain(context), CupertinoSwitchStyle.obtain(context));
+    }
+
+    @Test
+    public void sameAttributesShareTheStyle() {
+        CupertinoSwitchStyle style = obtain(Color.RED);
+        assertSame(style, obtain(Color.RED));
+        assertSame(style.getSliderPaint(), obtain(Color.RED).getSliderPaint());
+        assertEquals(Color.RED, style.getTrackOnColor());
+    }
+
+    @Test
+    public void changedAttributesReplaceTheStyle() {
+        CupertinoSwitchStyle red = obtain(Color.RED);
+        CupertinoSwitchStyle blue = obtain(Color.BLUE);
+
+        assertNotSame(red, blue);
+        assertEquals(Color.BLUE, blue.getTrackOnColor());
+        // The replaced style is still used by the switches created with it.
+        assertEquals(Color.RED, red.getTrackOnColor());
+        assertSame(blue, obtain(Color.BLUE));
+    }
+
+    /**
+     * Resolve the style like an inflated switch with the given track on color does.
+     */
+    private CupertinoSwitchStyle obtain(int trackOnColor) {
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.trackOnColor, String.format("#%08x", trackOnColor))
+                .build();
+        TypedArray typedArray = context.obtainStyledAttributes(attrs,
+                R.styleable.CupertinoSwitch, R.attr.cupertinoSwitchStyle, 0);
+        CupertinoSwitchStyle style = CupertinoSwitchStyle.obtain(context, 0, typedArray);
+        typedArray.recycle();
+        return style;
+    }
+}
@@ -0,0 +1,380 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.os.Looper;
+import android.os.Parcelable;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * JVM test of the {@link CupertinoSwitch} state machine, the transitions run on a fake frame
+ * clock.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CupertinoSwitchTest {
+    private static final float DELTA = 0.0001f;
+
+    private FakeFrameClock frameClock;
+    private CupertinoSwitch cupertinoSwitch;
+    private SwitchGestures gestures;
+    private final ArrayList<Boolean> changes = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        frameClock = new FakeFrameClock();
+        FrameScheduler.setInstance(frameClock);
+
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class)
+                .create();
+        Activity activity = controller.get();
+        cupertinoSwitch = new CupertinoSwitch(activity);
+        // A wide track, so that the drag speeds are well apart from the fling threshold.
+        cupertinoSwitch.setSwitchWidth(200);
+        cupertinoSwitch.setSwitchHeight(40);
+        cupertinoSwitch.setTrackOffColor(Color.GRAY);
+        cupertinoSwitch.setTrackOnColor(Color.GREEN);
+        cupertinoSwitch.setOnStateChangeListener(new CupertinoSwitch.OnStateChangeListener() {
+            @Override
+            public void onChanged(CupertinoSwitch view, boolean checked) {
+                changes.add(checked);
+            }
+
+            @Override
+            public void onSwitchOn(CupertinoSwitch view) {
+            }
+
+            @Override
+            public void onSwitchOff(CupertinoSwitch view) {
+            }
+        });
+
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(cupertinoSwitch, ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT);
+        activity.setContentView(root);
+        // Attached and laid out, so that the state changes are animated.
+        controller.start().resume().visible();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        gestures = new SwitchGestures(cupertinoSwitch);
+    }
+
+    @After
+    public void tearDown() {
+        FrameScheduler.setInstance(null);
+    }
+
+    @Test
+    public void tapAnimatesToTheOtherState() {
+        gestures.tap();
+        assertTrue(cupertinoSwitch.isTransitionRunning());
+        assertFalse(cupertinoSwitch.isChecked());
+        assertTrue(changes.isEmpty());
+
+        frameClock.settle();
+        assertSettled(true);
+        assertEquals(1, changes.size());
+        assertTrue(changes.get(0));
+    }
+
+    @Test
+    public void jitteryTapSettlesAtRest() {
+        gestures.tap(2);
+        frameClock.settle();
+        assertSettled(true);
+
+        // The resting color follows the palette, the tap left no drag behind.
+        cupertinoSwitch.setTrackOnColor(Color.BLUE);
+        assertEquals(Color.BLUE, cupertinoSwitch.getTrackColor());
+    }
+
+    @Test
+    public void tapDuringTransitionReverses() {
+        gestures.tap();
+        frameClock.advance(100);
+        float position = cupertinoSwitch.getSliderPosition();
+        assertTrue(position > 0 && position < 1);
+
+        gestures.tap();
+        frameClock.settle();
+        assertSettled(false);
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void dragPastHalfwayChecks() {
+        gestures.drag(0, 0.7f, 300, 250);
+        frameClock.settle();
+        assertSettled(true);
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    public void dragShortOfHalfwayReturns() {
+        gestures.drag(0, 0.3f, 300, 250);
+        frameClock.settle();
+        assertSettled(false);
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void flingDecidesTheState() {
+        gestures.drag(0, 0.3f, 120, 0);
+        frameClock.settle();
+        assertSettled(true);
+
+        gestures.drag(1, 0.7f, 120, 0);
+        frameClock.settle();
+        assertSettled(false);
+        assertEquals(2, changes.size());
+    }
+
+    @Test
+    public void flickShorterThanTapTimeoutIsNotAClick() {
+        // Both flicks are released within the tap timeout.
+        gestures.drag(0, 0.4f, 48, 0);
+        frameClock.settle();
+        assertSettled(true);
+
+        // Flicked towards the state it is already in.
+        gestures.drag(0.6f, 1, 48, 0);
+        frameClock.settle();
+        assertSettled(true);
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    public void dragTakesOverARunningTransition() {
+        gestures.tap();
+        frameClock.advance(100);
+        float position = cupertinoSwitch.getSliderPosition();
+        assertTrue(position > 0 && position < 1);
+
+        gestures.down(position);
+        gestures.moveTo(position * 0.5f, 8);
+        assertFalse(cupertinoSwitch.isTransitionRunning());
+        for (int i = 1; i <= 4; i++) {
+            float fingerPosition = position * 0.5f * (1 - i / 4f);
+            gestures.moveTo(fingerPosition, 16);
+            frameClock.nextFrame();
+            // The slider stays under the finger, no transition moves it anymore.
+            assertEquals(fingerPosition, cupertinoSwitch.getSliderPosition(), 0.01f);
+        }
+        for (int i = 0; i < 20; i++) {
+            gestures.moveTo(0, 16);
+            frameClock.nextFrame();
+        }
+        gestures.up(0);
+        frameClock.settle();
+        assertSettled(false);
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void touchPredictionDrawsTheSliderAhead() {
+        cupertinoSwitch.setTouchPredictionEnabled(true);
+        gestures.down(0);
+        for (int i = 1; i <= 5; i++) {
+            gestures.moveTo(0.1f * i, 8);
+        }
+        // About one frame ahead of the finger at 0.5.
+        float position = cupertinoSwitch.getSliderPosition();
+        assertTrue(position > 0.6f && position < 1);
+
+        cupertinoSwitch.setTouchPredictionEnabled(false);
+        gestures.moveTo(0.6f, 8);
+        assertEquals(0.6f, cupertinoSwitch.getSliderPosition(), 0.01f);
+    }
+
+    @Test
+    public void settledModeNotifiesAfterTheTransition() {
+        cupertinoSwitch.setDispatchMode(CupertinoSwitch.DISPATCH_MODE_SETTLED);
+        gestures.tap();
+        frameClock.settle();
+        assertSettled(true);
+        assertTrue(changes.isEmpty());
+
+        idleMainLooper(0);
+        assertEquals(1, changes.size());
+        assertTrue(changes.get(0));
+    }
+
+    @Test
+    public void settledModeSkipsAReversedChange() {
+        cupertinoSwitch.setDispatchMode(CupertinoSwitch.DISPATCH_MODE_SETTLED);
+        gestures.tap();
+        frameClock.settle();
+        // Reversed before the settled state is delivered.
+        gestures.tap();
+        frameClock.settle();
+        idleMainLooper(0);
+        assertSettled(false);
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void coalescedModeNotifiesTheLastStateOfABurst() {
+        cupertinoSwitch.setDispatchMode(CupertinoSwitch.DISPATCH_MODE_COALESCED);
+        cupertinoSwitch.setDispatchWindow(300);
+        for (int i = 0; i < 3; i++) {
+            gestures.tap();
+            frameClock.settle();
+            idleMainLooper(100);
+        }
+        assertSettled(true);
+        assertTrue(changes.isEmpty());
+
+        // The window restarts with each settled transition.
+        idleMainLooper(199);
+        assertTrue(changes.isEmpty());
+        idleMainLooper(1);
+        assertEquals(1, changes.size());
+        assertTrue(changes.get(0));
+    }
+
+    @Test
+    public void coalescedModeSkipsABurstBackToTheStartState() {
+        cupertinoSwitch.setDispatchMode(CupertinoSwitch.DISPATCH_MODE_COALESCED);
+        cupertinoSwitch.setDispatchWindow(300);
+        for (int i = 0; i < 4; i++) {
+            gestures.tap();
+            frameClock.settle();
+            idleMainLooper(100);
+        }
+        idleMainLooper(300);
+        assertSettled(false);
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void pendingNotificationIsDeliveredWhenDetached() {
+        cupertinoSwitch.setDispatchMode(CupertinoSwitch.DISPATCH_MODE_COALESCED);
+        gestures.tap();
+        frameClock.settle();
+        assertTrue(changes.isEmpty());
+
+        ((ViewGroup) cupertinoSwitch.getParent()).removeView(cupertinoSwitch);
+        assertEquals(1, changes.size());
+        assertTrue(changes.get(0));
+        idleMainLooper(cupertinoSwitch.getDispatchWindow());
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    public void dispatchWindowIsNotNegative() {
+        cupertinoSwitch.setDispatchWindow(-1);
+        assertEquals(0, cupertinoSwitch.getDispatchWindow());
+    }
+
+    @Test
+    public void jumpToStateDoesNotNotify() {
+        gestures.tap();
+        frameClock.advance(100);
+
+        cupertinoSwitch.jumpToState(true);
+        assertFalse(cupertinoSwitch.isTransitionRunning());
+        assertSettled(true);
+        frameClock.settle();
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void springRetargetsContinuously() {
+        cupertinoSwitch.setSwitchAnimation(CupertinoSwitch.SWITCH_ANIMATION_SPRING);
+        gestures.tap();
+        frameClock.advance(100);
+        float position = cupertinoSwitch.getSliderPosition();
+
+        gestures.tap();
+        frameClock.nextFrame();
+        // The slider keeps its momentum instead of jumping back.
+        assertEquals(position, cupertinoSwitch.getSliderPosition(), 0.1f);
+
+        frameClock.settle();
+        assertSettled(false);
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void springSettleTimeGrowsSlowlyWithTheDistance() {
+        cupertinoSwitch.setSwitchAnimation(CupertinoSwitch.SWITCH_ANIMATION_SPRING);
+        gestures.tap();
+        int fullFrames = countFramesToSettle();
+
+        gestures.drag(1, 0.2f, 300, 250);
+        int shortFrames = countFramesToSettle();
+        assertSettled(false);
+        // Sooner, but not in proportion to the distance, a fifth of the whole one.
+        assertTrue(shortFrames < fullFrames);
+        assertTrue(shortFrames > fullFrames / 2);
+    }
+
+    @Test
+    public void savedTransitionIsRestoredAtRest() {
+        gestures.tap();
+        frameClock.advance(100);
+        Parcelable state = cupertinoSwitch.onSaveInstanceState();
+
+        // A new switch, restored before it is laid out.
+        CupertinoSwitch restored = new CupertinoSwitch(cupertinoSwitch.getContext());
+        restored.onRestoreInstanceState(state);
+        assertTrue(restored.isChecked());
+        assertFalse(restored.isTransitionRunning());
+
+        // The same switch, laid out.
+        cupertinoSwitch.onRestoreInstanceState(state);
+        assertSettled(true);
+        frameClock.settle();
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void restyleRequestsLayoutOnlyIfTheSizeChanges() {
+        cupertinoSwitch.setSliderRadius(cupertinoSwitch.getSliderRadius() - 1);
+        cupertinoSwitch.setTrackOnColor(Color.BLUE);
+        assertFalse(cupertinoSwitch.isLayoutRequested());
+
+        cupertinoSwitch.setSwitchWidth(220);
+        assertTrue(cupertinoSwitch.isLayoutRequested());
+    }
+
+    /**
+     * Run the main looper tasks due within the given time, e.g. the deferred notifications.
+     */
+    private void idleMainLooper(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private int countFramesToSettle() {
+        int frames = 0;
+        while (cupertinoSwitch.isTransitionRunning()) {
+            frameClock.nextFrame();
+            frames++;
+        }
+        return frames;
+    }
+
+    private void assertSettled(boolean checked) {
+        assertFalse(cupertinoSwitch.isTransitionRunning());
+        assertEquals(checked, cupertinoSwitch.isChecked());
+        assertEquals(checked ? 1 : 0, cupertinoSwitch.getSliderPosition(), DELTA);
+        assertEquals(checked ? Color.GREEN : Color.GRAY, cupertinoSwitch.getTrackColor());
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * A deterministic frame clock for the JVM tests, the posted frame callbacks only run when the
+ * test advances the clock.
+ */
+final class FakeFrameClock extends FrameScheduler {
+    /** A 60Hz display. */
+    static final long FRAME_INTERVAL_NANOS = 16666667L;
+
+    /** The longest a transition may run for in the tests, in frames. */
+    private static final int MAX_SETTLE_FRAMES = 1000;
+
+    private final ArrayList<Choreographer.FrameCallback> callbacks = new ArrayList<>();
+    private long frameTimeNanos = 1000000000L;
+
+    @Override
+    void postFrameCallback(Choreographer.FrameCallback callback) {
+        callbacks.add(callback);
+    }
+
+    @Override
+    void removeFrameCallback(Choreographer.FrameCallback callback) {
+        while (callbacks.remove(callback)) {
+            // Remove every occurrence, like the Choreographer.
+        }
+    }
+
+    /**
+     * @return The time of the latest frame, the clock does not move between frames.
+     */
+    @Override
+    long nanoTime() {
+        return frameTimeNanos;
+    }
+
+    /**
+     * Skip frames without running the posted callbacks, like a stalled main thread.
+     * @param count The number of frames to skip.
+     */
+    void skipFrames(int count) {
+        frameTimeNanos += FRAME_INTERVAL_NANOS * count;
+    }
+
+    /**
+     * Run the callbacks posted so far with the time of the next frame, the callbacks they post
+     * run on the frame after.
+     */
+    void nextFrame() {
+        frameTimeNanos += FRAME_INTERVAL_NANOS;
+        ArrayList<Choreographer.FrameCallback> frameCallbacks = new ArrayList<>(callbacks);
+        callbacks.clear();
+        for (Choreographer.FrameCallback callback : frameCallbacks) {
+            callback.doFrame(frameTimeNanos);
+        }
+    }
+
+    /**
+     * Run the frames of the given duration.
+     * @param millis The time to advance the clock by.
+     */
+    void advance(long millis) {
+        long frames = millis * 1000000L / FRAME_INTERVAL_NANOS;
+        for (long i = 0; i < frames; i++) {
+            nextFrame();
+        }
+    }
+
+    /**
+     * Run frames until no callback is posted anymore.
+     * @throws AssertionError If the callbacks keep posting frames.
+     */
+    void settle() {
+        for (int i = 0; i < MAX_SETTLE_FRAMES; i++) {
+            if (callbacks.isEmpty()) {
+                return;
+            }
+            nextFrame();
+        }
+        throw new AssertionError("Frame callbacks still posted after " + MAX_SETTLE_FRAMES
+                + " frames");
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.provider.Settings;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * JVM test of the {@link MotionSettings} observer, the duration scaling and the shadow drop in
+ * battery saver.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MotionSettingsTest {
+    private Context context;
+    private int changes;
+
+    private final MotionSettings.Listener listener = new MotionSettings.Listener() {
+        @Override
+        public void onMotionSettingsChanged() {
+            changes++;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        // The switches of the other tests may still be registered.
+        MotionSettings.reset();
+    }
+
+    @After
+    public void tearDown() {
+        MotionSettings.reset();
+    }
+
+    @Test
+    public void durationFollowsTheAnimatorDurationScale() {
+        setDurationScale(2f);
+        MotionSettings.register(context, listener);
+        assertEquals(500, MotionSettings.scaleDuration(250));
+
+        // Animations turned off.
+        setDurationScale(0f);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(1, changes);
+        assertEquals(0, MotionSettings.scaleDuration(250));
+    }
+
+    @Test
+    public void powerSaveShortensTheDuration() {
+        MotionSettings.register(context, listener);
+        assertEquals(250, MotionSettings.scaleDuration(250));
+
+        setPowerSaveMode(true);
+        assertEquals(1, changes);
+        assertTrue(MotionSettings.isPowerSaveMode());
+        assertEquals(125, MotionSettings.scaleDuration(250));
+    }
+
+    @Test
+    public void powerSaveDropsTheSliderShadow() {
+        CupertinoSwitchStyle style = CupertinoSwitchStyle.obtain(context);
+        assertTrue(style.isSliderShadowEnabled());
+        MotionSettings.register(context, listener);
+        SwitchRenderer renderer = new SwitchRenderer(style);
+        int shadowExtent = renderer.getSliderExtent();
+        int shadowOffset = renderer.getShadowOffset();
+        assertTrue(shadowExtent > style.getSliderRadius() + 1);
+        assertFalse(renderer.refreshSliderShadow());
+
+        setPowerSaveMode(true);
+        assertTrue(renderer.refreshSliderShadow());
+        assertEquals(style.getSliderRadius() + 1, renderer.getSliderExtent());
+        // The room of the shadow is kept, the track does not move.
+        assertEquals(shadowOffset, renderer.getShadowOffset());
+
+        setPowerSaveMode(false);
+        assertTrue(renderer.refreshSliderShadow());
+        assertEquals(shadowExtent, renderer.getSliderExtent());
+    }
+
+    @Test
+    public void settingsAreNotObservedWithoutListeners() {
+        MotionSettings.register(context, listener);
+        MotionSettings.unregister(listener);
+
+        setPowerSaveMode(true);
+        assertEquals(0, changes);
+        assertFalse(MotionSettings.isPowerSaveMode());
+
+        // Read on demand instead.
+        MotionSettings.refresh(context);
+        assertTrue(MotionSettings.isPowerSaveMode());
+    }
+
+    private void setDurationScale(float scale) {
+        Settings.Global.putFloat(context.getContentResolver(),
+                Settings.Global.ANIMATOR_DURATION_SCALE, scale);
+        context.getContentResolver().notifyChange(
+                Settings.Global.getUriFor(Settings.Global.ANIMATOR_DURATION_SCALE), null);
+    }
+
+    private void setPowerSaveMode(boolean powerSaveMode) {
+        PowerManager powerManager = (PowerManager) context.getSystemService(
+                Context.POWER_SERVICE);
+        shadowOf(powerManager).setIsPowerSaveMode(powerSaveMode);
+        context.sendBroadcast(new Intent(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.vejei.cupertinoswitch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * JVM test of the concurrent transition limit of the {@link SwitchAnimationCoordinator}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SwitchAnimationCoordinatorTest {
+    private FakeFrameClock frameClock;
+    private int ended;
+
+    @Before
+    public void setUp() {
+        frameClock = new FakeFrameClock();
+        FrameScheduler.setInstance(frameClock);
+        SwitchAnimationCoordinator.setEnabled(true);
+        SwitchAnimationCoordinator.setMaxConcurrentAnimations(2);
+    }
+
+    @After
+    public void tearDown() {
+        SwitchAnimationCoordinator.setEnabled(false);
+        SwitchAnimationCoordinator.setMaxConcurrentAnimations(0);
+        FrameScheduler.setInstance(null);
+    }
+
+    @Test
+    public void transitionsOverTheLimitSnap() {
+        SwitchAnimator[] animators = startAnimators(5);
+        frameClock.nextFrame();
+        // The three started over the limit end on their first frame.
+        assertEquals(3, ended);
+
+        frameClock.settle();
+        assertEquals(5, ended);
+
+        // The finished transitions no longer count, the next ones animate again.
+        ended = 0;
+        for (SwitchAnimator animator : animators) {
+            animator.start();
+        }
+        frameClock.nextFrame();
+        assertEquals(3, ended);
+        frameClock.settle();
+    }
+
+    @Test
+    public void canceledTransitionsFreeTheirSlot() {
+        SwitchAnimator[] animators = startAnimators(2);
+        animators[0].cancel();
+        startAnimators(1);
+        frameClock.nextFrame();
+        assertEquals(0, ended);
+        frameClock.settle();
+    }
+
+    private SwitchAnimator[] startAnimators(int count) {
+        SwitchAnimator[] animators = new SwitchAnimator[count];
+        for (int i = 0; i < count; i++) {
+            animators[i] = new SwitchAnimator(null, new SwitchAnimator.Callback() {
+                @Override
+                public void onAnimationUpdate(float fraction) {
+                }
+
+                @Override
+                public void onAnimationEnd() {
+                    ended++;
+                }
+            });
+            animators[i].setDuration(250);
+            animators[i].start();
+        }
+        return animators;
+    }
+}
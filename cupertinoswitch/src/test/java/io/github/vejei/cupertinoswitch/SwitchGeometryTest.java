@@ -0,0 +1,101 @@
+package io.github.vejei.cupertinoswitch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test of the {@link SwitchGeometry} computed for both layout directions.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SwitchGeometryTest {
+    private static final float DELTA = 0.0001f;
+
+    private SwitchGeometry geometry;
+
+    @Before
+    public void setUp() {
+        geometry = new SwitchGeometry();
+    }
+
+    @Test
+    public void leftToRight() {
+        assertTrue(geometry.update(120, 40, 10, 0, 10, 0, 60, 30, 5, false));
+
+        // The track is aligned to the end, inside the padding and the shadow offset.
+        assertEquals(45, geometry.trackRect.left, DELTA);
+        assertEquals(105, geometry.trackRect.right, DELTA);
+        assertEquals(5, geometry.trackRect.top, DELTA);
+        assertEquals(35, geometry.trackRect.bottom, DELTA);
+        assertEquals(15, geometry.trackCornerRadius, DELTA);
+
+        assertEquals(60, geometry.sliderStartX, DELTA);
+        assertEquals(90, geometry.sliderEndX, DELTA);
+        assertEquals(20, geometry.sliderCenterY, DELTA);
+        assertFalse(geometry.isRtl());
+    }
+
+    @Test
+    public void rightToLeft() {
+        assertTrue(geometry.update(120, 40, 10, 0, 10, 0, 60, 30, 5, true));
+
+        // The track is aligned to the start, the slider moves from right to left.
+        assertEquals(15, geometry.trackRect.left, DELTA);
+        assertEquals(75, geometry.trackRect.right, DELTA);
+        assertEquals(60, geometry.sliderStartX, DELTA);
+        assertEquals(30, geometry.sliderEndX, DELTA);
+        assertTrue(geometry.isRtl());
+    }
+
+    @Test
+    public void unchangedConfigurationIsNotRecomputed() {
+        assertTrue(geometry.update(120, 40, 0, 0, 0, 0, 60, 30, 0, false));
+        assertFalse(geometry.update(120, 40, 0, 0, 0, 0, 60, 30, 0, false));
+        assertTrue(geometry.update(120, 40, 0, 0, 0, 0, 60, 30, 0, true));
+        assertTrue(geometry.update(120, 40, 0, 0, 0, 0, 60, 30, 4, true));
+    }
+
+    @Test
+    public void fractionFollowsLayoutDirection() {
+        geometry.update(60, 30, 0, 0, 0, 0, 60, 30, 0, false);
+        assertEquals(0, geometry.fractionAt(15), DELTA);
+        assertEquals(0.5f, geometry.fractionAt(30), DELTA);
+        assertEquals(1, geometry.fractionAt(45), DELTA);
+        assertEquals(45, geometry.sliderXAt(1), DELTA);
+
+        geometry.update(60, 30, 0, 0, 0, 0, 60, 30, 0, true);
+        assertEquals(1, geometry.fractionAt(15), DELTA);
+        assertEquals(0, geometry.fractionAt(45), DELTA);
+        assertEquals(15, geometry.sliderXAt(1), DELTA);
+    }
+
+    @Test
+    public void sliderIsConstrainedToTheTrack() {
+        for (boolean rtl : new boolean[] {false, true}) {
+            geometry.update(60, 30, 0, 0, 0, 0, 60, 30, 0, rtl);
+            assertEquals(15, geometry.constrainSliderX(-100), DELTA);
+            assertEquals(45, geometry.constrainSliderX(100), DELTA);
+            assertEquals(20, geometry.constrainSliderX(20), DELTA);
+        }
+    }
+
+    @Test
+    public void hitRegionIsTheRoundedTrack() {
+        geometry.update(60, 30, 0, 0, 0, 0, 60, 30, 0, false);
+        assertTrue(geometry.contains(30, 0));
+        assertTrue(geometry.contains(15, 15));
+        assertTrue(geometry.contains(1, 15));
+        assertTrue(geometry.contains(59, 15));
+
+        // The corners outside the semicircles.
+        assertFalse(geometry.contains(1, 1));
+        assertFalse(geometry.contains(59, 29));
+        assertFalse(geometry.contains(61, 15));
+        assertFalse(geometry.contains(30, 31));
+    }
+}
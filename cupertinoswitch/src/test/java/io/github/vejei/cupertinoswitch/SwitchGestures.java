@@ -0,0 +1,112 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+/**
+ * Feeds synthetic touch gestures to a {@link CupertinoSwitch}, the event times of successive
+ * gestures never overlap.
+ */
+final class SwitchGestures {
+    private static final long MOVE_INTERVAL_MILLIS = 8;
+
+    private final CupertinoSwitch view;
+    private long eventTime = SystemClock.uptimeMillis();
+
+    /** The down time and the position of the touch in progress. */
+    private long downTime;
+    private float touchX;
+
+    SwitchGestures(CupertinoSwitch view) {
+        this.view = view;
+    }
+
+    /**
+     * Tap the middle of the track.
+     */
+    void tap() {
+        tap(0);
+    }
+
+    /**
+     * Tap the middle of the track, the finger slightly moving before the release.
+     * @param moveBy The horizontal distance the finger moves by, in pixels.
+     */
+    void tap(float moveBy) {
+        SwitchGeometry geometry = view.getGeometry();
+        float x = geometry.trackRect.centerX();
+        float y = geometry.trackRect.centerY();
+        long downTime = nextEventTime(1000);
+        send(downTime, downTime, MotionEvent.ACTION_DOWN, x, y);
+        if (moveBy != 0) {
+            send(downTime, nextEventTime(4), MotionEvent.ACTION_MOVE, x, y);
+            send(downTime, nextEventTime(4), MotionEvent.ACTION_MOVE, x + moveBy, y);
+        }
+        send(downTime, nextEventTime(10), MotionEvent.ACTION_UP, x + moveBy, y);
+    }
+
+    /**
+     * Drag the slider at a constant speed, then hold it still and release.
+     * @param from The slider position the touch starts at, 0 at the off state, 1 at the on state.
+     * @param to The slider position the touch is released at.
+     * @param durationMillis The duration of the movement.
+     * @param holdMillis How long the touch stays still before the release.
+     */
+    void drag(float from, float to, long durationMillis, long holdMillis) {
+        down(from);
+        // Within the touch slop, the touch does not drag yet.
+        moveTo(from, 0);
+
+        long steps = Math.max(1, durationMillis / MOVE_INTERVAL_MILLIS);
+        for (long i = 1; i <= steps; i++) {
+            moveTo(from + (to - from) * i / steps, durationMillis / steps);
+        }
+        for (long held = 0; held < holdMillis; held += MOVE_INTERVAL_MILLIS) {
+            moveTo(to, MOVE_INTERVAL_MILLIS);
+        }
+        up(0);
+    }
+
+    /**
+     * Put a finger down on the slider track.
+     * @param position The slider position the touch starts at.
+     */
+    void down(float position) {
+        SwitchGeometry geometry = view.getGeometry();
+        downTime = nextEventTime(1000);
+        touchX = geometry.sliderXAt(position);
+        send(downTime, downTime, MotionEvent.ACTION_DOWN, touchX, geometry.sliderCenterY);
+    }
+
+    /**
+     * Move the finger put down by {@link #down(float)}.
+     * @param position The slider position the touch moves to.
+     * @param afterMillis The time since the previous event.
+     */
+    void moveTo(float position, long afterMillis) {
+        SwitchGeometry geometry = view.getGeometry();
+        touchX = geometry.sliderXAt(position);
+        send(downTime, nextEventTime(afterMillis), MotionEvent.ACTION_MOVE, touchX,
+                geometry.sliderCenterY);
+    }
+
+    /**
+     * Lift the finger put down by {@link #down(float)}, where it is.
+     * @param afterMillis The time since the previous event.
+     */
+    void up(long afterMillis) {
+        send(downTime, nextEventTime(afterMillis), MotionEvent.ACTION_UP, touchX,
+                view.getGeometry().sliderCenterY);
+    }
+
+    private long nextEventTime(long delayMillis) {
+        eventTime += delayMillis;
+        return eventTime;
+    }
+
+    private void send(long downTime, long time, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, time, action, x, y, 0);
+        view.onTouchEvent(event);
+        event.recycle();
+    }
+}
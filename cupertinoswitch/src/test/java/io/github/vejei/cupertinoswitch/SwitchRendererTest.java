@@ -0,0 +1,55 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * JVM test of the {@link SwitchRenderer} placement of the pre-rendered slider.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SwitchRendererTest {
+    private static final float DELTA = 0.0001f;
+
+    private float bitmapLeft = Float.NaN;
+    private float bitmapTop = Float.NaN;
+
+    private final Canvas canvas = new Canvas() {
+        @Override
+        public void drawBitmap(@NonNull Bitmap bitmap, float left, float top,
+                               @Nullable Paint paint) {
+            bitmapLeft = left;
+            bitmapTop = top;
+        }
+    };
+
+    @Test
+    public void sliderBitmapIsDrawnOnWholePixels() {
+        CupertinoSwitchStyle style = CupertinoSwitchStyle.obtain(
+                ApplicationProvider.getApplicationContext());
+        SwitchRenderer renderer = new SwitchRenderer(style);
+        int extent = renderer.getSliderExtent();
+        SwitchGeometry geometry = new SwitchGeometry();
+        // An odd track height puts the slider center between two pixels.
+        geometry.update(120, 40, 0, 0, 0, 0, 60, 31, 5, false);
+
+        renderer.draw(canvas, geometry, false, false, Color.GRAY, 70.3f);
+        assertEquals(70 - extent, bitmapLeft, DELTA);
+        assertEquals(Math.round(geometry.sliderCenterY - extent), bitmapTop, DELTA);
+        assertEquals(0, bitmapTop % 1, DELTA);
+
+        renderer.draw(canvas, geometry, false, false, Color.GRAY, 70.7f);
+        assertEquals(71 - extent, bitmapLeft, DELTA);
+    }
+}
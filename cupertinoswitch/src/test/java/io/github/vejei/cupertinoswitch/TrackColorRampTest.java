@@ -0,0 +1,69 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.graphics.Color;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test of the shared {@link TrackColorRamp} blends.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TrackColorRampTest {
+    private static final int OFF_COLOR = 0xffdddddd;
+    private static final int ON_COLOR = 0xff4cd964;
+
+    @Test
+    public void palettesShareTheirRamp() {
+        TrackColorRamp ramp = TrackColorRamp.get(OFF_COLOR, ON_COLOR,
+                CupertinoSwitch.TRACK_COLOR_BLEND_LINEAR);
+        assertSame(ramp, TrackColorRamp.get(OFF_COLOR, ON_COLOR,
+                CupertinoSwitch.TRACK_COLOR_BLEND_LINEAR));
+        assertNotEquals(ramp, TrackColorRamp.get(OFF_COLOR, ON_COLOR,
+                CupertinoSwitch.TRACK_COLOR_BLEND_PERCEPTUAL));
+    }
+
+    @Test
+    public void endsAreTheExactColors() {
+        for (int blend : new int[] {CupertinoSwitch.TRACK_COLOR_BLEND_LINEAR,
+                CupertinoSwitch.TRACK_COLOR_BLEND_PERCEPTUAL}) {
+            TrackColorRamp ramp = TrackColorRamp.get(OFF_COLOR, ON_COLOR, blend);
+            assertEquals(OFF_COLOR, ramp.colorAt(0));
+            assertEquals(ON_COLOR, ramp.colorAt(1));
+            // Out of range fractions, e.g. a spring overshoot, are clamped.
+            assertEquals(OFF_COLOR, ramp.colorAt(-0.5f));
+            assertEquals(ON_COLOR, ramp.colorAt(1.5f));
+        }
+    }
+
+    @Test
+    public void linearBlendMatchesTheEvaluator() {
+        TrackColorRamp ramp = TrackColorRamp.get(OFF_COLOR, ON_COLOR,
+                CupertinoSwitch.TRACK_COLOR_BLEND_LINEAR);
+        for (float fraction = 0; fraction <= 1; fraction += 0.125f) {
+            assertEquals(ViewUtils.evaluateArgb(fraction, OFF_COLOR, ON_COLOR),
+                    ramp.colorAt(fraction));
+        }
+    }
+
+    @Test
+    public void perceptualBlendMovesEvenly() {
+        TrackColorRamp ramp = TrackColorRamp.get(Color.BLACK, Color.WHITE,
+                CupertinoSwitch.TRACK_COLOR_BLEND_PERCEPTUAL);
+        int previous = -1;
+        for (float fraction = 0; fraction <= 1; fraction += 0.125f) {
+            int gray = Color.red(ramp.colorAt(fraction));
+            assertTrue(gray > previous);
+            previous = gray;
+        }
+        // The perceived middle gray, lighter than the linear light middle.
+        int middle = Color.red(ramp.colorAt(0.5f));
+        assertTrue(middle > 90 && middle < 110);
+    }
+}
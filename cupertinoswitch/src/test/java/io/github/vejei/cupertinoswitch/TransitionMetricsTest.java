@@ -0,0 +1,178 @@
+package io.github.vejei.cupertinoswitch;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Looper;
+import android.view.MotionEvent;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * JVM test of the {@link TransitionMetrics} reported for touch driven transitions, the touches,
+ * the frames and the draws share the fake frame clock.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TransitionMetricsTest {
+    /** The frames of a full 250ms transition, from the frame it starts on. */
+    private static final int TRANSITION_FRAME_COUNT = 16;
+
+    private FakeFrameClock frameClock;
+    private CupertinoSwitch cupertinoSwitch;
+    private Canvas canvas;
+    private int reports;
+    private int frameCount;
+    private int droppedFrameCount;
+    private long touchToFirstFrameNanos;
+    private long durationNanos;
+
+    @Before
+    public void setUp() {
+        frameClock = new FakeFrameClock();
+        FrameScheduler.setInstance(frameClock);
+        // The switches of the other tests may still be registered, the default settings apply.
+        MotionSettings.reset();
+
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class)
+                .create();
+        Activity activity = controller.get();
+        cupertinoSwitch = new CupertinoSwitch(activity);
+        cupertinoSwitch.setSwitchWidth(200);
+        cupertinoSwitch.setSwitchHeight(40);
+        cupertinoSwitch.setSwitchDuration(250);
+        cupertinoSwitch.setOnTransitionMetricsListener(
+                new CupertinoSwitch.OnTransitionMetricsListener() {
+                    @Override
+                    public void onTransitionMetrics(CupertinoSwitch view,
+                                                    TransitionMetrics metrics) {
+                        reports++;
+                        frameCount = metrics.getFrameCount();
+                        droppedFrameCount = metrics.getDroppedFrameCount();
+                        touchToFirstFrameNanos = metrics.getTouchToFirstFrameNanos();
+                        durationNanos = metrics.getDurationNanos();
+                    }
+                });
+
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(cupertinoSwitch, ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT);
+        activity.setContentView(root);
+        controller.start().resume().visible();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        canvas = new Canvas(Bitmap.createBitmap(cupertinoSwitch.getWidth(),
+                cupertinoSwitch.getHeight(), Bitmap.Config.ARGB_8888));
+    }
+
+    @After
+    public void tearDown() {
+        FrameScheduler.setInstance(null);
+        MotionSettings.reset();
+    }
+
+    @Test
+    public void tapReportsTheFramesAndTheLatency() {
+        tap();
+        drawUntilSettled();
+
+        assertEquals(1, reports);
+        assertEquals(TRANSITION_FRAME_COUNT, frameCount);
+        assertEquals(0, droppedFrameCount);
+        // Drawn on the frame after the tap.
+        assertEquals(FakeFrameClock.FRAME_INTERVAL_NANOS, touchToFirstFrameNanos);
+        assertEquals(TRANSITION_FRAME_COUNT * FakeFrameClock.FRAME_INTERVAL_NANOS, durationNanos);
+    }
+
+    @Test
+    public void stalledFramesAreCountedAsDropped() {
+        tap();
+        frameClock.nextFrame();
+        cupertinoSwitch.draw(canvas);
+        frameClock.skipFrames(3);
+        drawUntilSettled();
+
+        assertEquals(1, reports);
+        assertEquals(TRANSITION_FRAME_COUNT - 3, frameCount);
+        assertEquals(3, droppedFrameCount);
+        assertEquals(FakeFrameClock.FRAME_INTERVAL_NANOS, touchToFirstFrameNanos);
+    }
+
+    @Test
+    public void dragReportsTheLatencyFromTheDown() {
+        SwitchGeometry geometry = cupertinoSwitch.getGeometry();
+        long downTimeNanos = frameClock.nanoTime();
+        long downTime = downTimeNanos / 1000000L;
+        send(downTime, MotionEvent.ACTION_DOWN, geometry.sliderXAt(0));
+        for (int i = 1; i <= 10; i++) {
+            frameClock.nextFrame();
+            send(downTime, MotionEvent.ACTION_MOVE, geometry.sliderXAt(0.08f * i));
+        }
+        // Held still, so that the release is not a fling.
+        for (int i = 0; i < 15; i++) {
+            frameClock.nextFrame();
+            send(downTime, MotionEvent.ACTION_MOVE, geometry.sliderXAt(0.8f));
+        }
+        long upTimeNanos = frameClock.nanoTime();
+        send(downTime, MotionEvent.ACTION_UP, geometry.sliderXAt(0.8f));
+        assertTrue(cupertinoSwitch.isTransitionRunning());
+        drawUntilSettled();
+
+        assertEquals(1, reports);
+        assertTrue(cupertinoSwitch.isChecked());
+        assertEquals(TRANSITION_FRAME_COUNT, frameCount);
+        assertEquals(0, droppedFrameCount);
+        assertEquals(upTimeNanos + FakeFrameClock.FRAME_INTERVAL_NANOS - downTimeNanos,
+                touchToFirstFrameNanos);
+    }
+
+    @Test
+    public void programmaticChangeHasNoTouchLatency() {
+        cupertinoSwitch.setChecked(true);
+        drawUntilSettled();
+
+        assertEquals(1, reports);
+        assertEquals(TRANSITION_FRAME_COUNT, frameCount);
+        assertEquals(-1, touchToFirstFrameNanos);
+    }
+
+    /**
+     * Tap the middle of the track, the touch is released at the time it is put down.
+     */
+    private void tap() {
+        long downTime = frameClock.nanoTime() / 1000000L;
+        float x = cupertinoSwitch.getGeometry().trackRect.centerX();
+        send(downTime, MotionEvent.ACTION_DOWN, x);
+        send(downTime, MotionEvent.ACTION_UP, x);
+    }
+
+    /**
+     * Run the transition frames, each one drawn like the view would be.
+     */
+    private void drawUntilSettled() {
+        int frames = 0;
+        while (cupertinoSwitch.isTransitionRunning()) {
+            frameClock.nextFrame();
+            cupertinoSwitch.draw(canvas);
+            assertTrue(++frames < 1000);
+        }
+    }
+
+    private void send(long downTime, int action, float x) {
+        MotionEvent event = MotionEvent.obtain(downTime, frameClock.nanoTime() / 1000000L,
+                action, x, cupertinoSwitch.getGeometry().sliderCenterY, 0);
+        cupertinoSwitch.onTouchEvent(event);
+        event.recycle();
+    }
+}
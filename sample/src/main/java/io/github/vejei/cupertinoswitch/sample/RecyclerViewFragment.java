@@ -0,0 +1,158 @@
+package io.github.vejei.cupertinoswitch.sample;
+
+import android.os.Bundle;
+import android.view.Choreographer;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import io.github.vejei.cupertinoswitch.CupertinoSwitch;
+
+public class RecyclerViewFragment extends Fragment {
+    private static final int ITEM_COUNT = 10000;
+
+    private final boolean[] states = new boolean[ITEM_COUNT];
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
+                             @Nullable Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_recycler_view, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        for (int i = 0; i < ITEM_COUNT; i += 3) {
+            states[i] = true;
+        }
+
+        RecyclerView recyclerView = view.findViewById(R.id.recycler_view);
+        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        recyclerView.setAdapter(new SwitchAdapter());
+
+        TextView statsTextView = view.findViewById(R.id.text_jank_stats);
+        JankMonitor jankMonitor = new JankMonitor(requireActivity().getWindowManager()
+                .getDefaultDisplay().getRefreshRate());
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    jankMonitor.stop();
+                    statsTextView.setText(getString(R.string.jank_stats_text,
+                            jankMonitor.frameCount, jankMonitor.jankFrameCount,
+                            jankMonitor.getJankPercent()));
+                } else {
+                    jankMonitor.start();
+                }
+            }
+        });
+    }
+
+    private class SwitchAdapter extends RecyclerView.Adapter<SwitchViewHolder> {
+        @NonNull
+        @Override
+        public SwitchViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View itemView = getLayoutInflater().inflate(R.layout.item_switch, parent, false);
+            SwitchViewHolder holder = new SwitchViewHolder(itemView);
+            holder.cupertinoSwitch.setOnStateChangeListener(
+                    new CupertinoSwitch.OnStateChangeListener() {
+                        @Override
+                        public void onChanged(CupertinoSwitch view, boolean checked) {
+                            int position = holder.getAdapterPosition();
+                            if (position != RecyclerView.NO_POSITION) {
+                                states[position] = checked;
+                            }
+                        }
+
+                        @Override
+                        public void onSwitchOn(CupertinoSwitch view) {
+                        }
+
+                        @Override
+                        public void onSwitchOff(CupertinoSwitch view) {
+                        }
+                    });
+            return holder;
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull SwitchViewHolder holder, int position) {
+            holder.titleTextView.setText(getString(R.string.item_title_text, position));
+            // Snap the recycled switch to the bound state, no animation and no callback.
+            holder.cupertinoSwitch.jumpToState(states[position]);
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEM_COUNT;
+        }
+    }
+
+    private static class SwitchViewHolder extends RecyclerView.ViewHolder {
+        final TextView titleTextView;
+        final CupertinoSwitch cupertinoSwitch;
+
+        SwitchViewHolder(@NonNull View itemView) {
+            super(itemView);
+            titleTextView = itemView.findViewById(R.id.text_title);
+            cupertinoSwitch = itemView.findViewById(R.id.cupertino_switch);
+        }
+    }
+
+    /**
+     * Count the frames taking longer than one and a half refresh intervals while scrolling.
+     */
+    private static class JankMonitor implements Choreographer.FrameCallback {
+        private final long frameIntervalNanos;
+        private boolean running;
+        private long lastFrameTimeNanos;
+        int frameCount;
+        int jankFrameCount;
+
+        JankMonitor(float refreshRate) {
+            frameIntervalNanos = (long) (1000000000L / refreshRate);
+        }
+
+        void start() {
+            if (!running) {
+                running = true;
+                lastFrameTimeNanos = 0;
+                frameCount = 0;
+                jankFrameCount = 0;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+
+        void stop() {
+            running = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        float getJankPercent() {
+            return frameCount == 0 ? 0 : jankFrameCount * 100f / frameCount;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!running) {
+                return;
+            }
+            if (lastFrameTimeNanos != 0) {
+                frameCount++;
+                if (frameTimeNanos - lastFrameTimeNanos > frameIntervalNanos * 3 / 2) {
+                    jankFrameCount++;
+                }
+            }
+            lastFrameTimeNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
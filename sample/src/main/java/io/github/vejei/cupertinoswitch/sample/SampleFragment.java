@@ -22,7 +22,9 @@ public class SampleFragment extends Fragment {
     private static final String[] sampleNames = {
             "Basic sample",
             "Right to left (rtl) direction sample",
-            "Programmatically sample"
+            "Programmatically sample",
+            "Stress sample",
+            "RecyclerView sample"
     };
 
     @Nullable
@@ -78,6 +80,12 @@ public class SampleFragment extends Fragment {
                 case 2:
                     fragmentManager.replace(R.id.fragment_container, new ProgrammaticallyFragment());
                     break;
+                case 3:
+                    fragmentManager.replace(R.id.fragment_container, new StressFragment());
+                    break;
+                case 4:
+                    fragmentManager.replace(R.id.fragment_container, new RecyclerViewFragment());
+                    break;
             }
 
             fragmentManager.addToBackStack(null);
@@ -0,0 +1,80 @@
+package io.github.vejei.cupertinoswitch.sample;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.GridLayout;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.fragment.app.Fragment;
+
+import io.github.vejei.cupertinoswitch.CupertinoSwitch;
+import io.github.vejei.cupertinoswitch.CupertinoSwitchStyle;
+import io.github.vejei.cupertinoswitch.SwitchAnimationCoordinator;
+
+public class StressFragment extends Fragment {
+    private static final int SWITCH_COUNT = 500;
+    private static final int MAX_CONCURRENT_ANIMATIONS = 32;
+
+    private boolean checked;
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
+                             @Nullable Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_stress, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        GridLayout grid = view.findViewById(R.id.grid);
+        // Resolved once and shared, the switches skip the attribute resolution.
+        CupertinoSwitchStyle style = CupertinoSwitchStyle.obtain(requireContext());
+        int trackOnColor = ContextCompat.getColor(requireContext(), R.color.purple_500);
+        for (int i = 0; i < SWITCH_COUNT; i++) {
+            CupertinoSwitch cupertinoSwitch = new CupertinoSwitch(getContext(), style);
+            cupertinoSwitch.setTrackOnColor(trackOnColor);
+            GridLayout.LayoutParams layoutParams = new GridLayout.LayoutParams();
+            layoutParams.setMargins(8, 8, 8, 8);
+            grid.addView(cupertinoSwitch, layoutParams);
+        }
+
+        CheckBox coordinatedCheckBox = view.findViewById(R.id.check_box_coordinated);
+        CheckBox limitedCheckBox = view.findViewById(R.id.check_box_limited);
+        coordinatedCheckBox.setChecked(SwitchAnimationCoordinator.isEnabled());
+        coordinatedCheckBox.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            SwitchAnimationCoordinator.setEnabled(isChecked);
+            // The limit only applies to the transitions driven by the coordinator.
+            limitedCheckBox.setEnabled(isChecked);
+        });
+
+        limitedCheckBox.setText(getString(R.string.limited_animations_text,
+                MAX_CONCURRENT_ANIMATIONS));
+        limitedCheckBox.setEnabled(coordinatedCheckBox.isChecked());
+        limitedCheckBox.setChecked(SwitchAnimationCoordinator.getMaxConcurrentAnimations() > 0);
+        limitedCheckBox.setOnCheckedChangeListener((buttonView, isChecked) ->
+                SwitchAnimationCoordinator.setMaxConcurrentAnimations(
+                        isChecked ? MAX_CONCURRENT_ANIMATIONS : 0));
+
+        Button toggleButton = view.findViewById(R.id.button_toggle_all);
+        toggleButton.setOnClickListener((v) -> {
+            checked = !checked;
+            for (int i = 0; i < grid.getChildCount(); i++) {
+                ((CupertinoSwitch) grid.getChildAt(i)).setChecked(checked);
+            }
+        });
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        SwitchAnimationCoordinator.setEnabled(false);
+        SwitchAnimationCoordinator.setMaxConcurrentAnimations(0);
+    }
+}